@@ -0,0 +1,230 @@
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmarks of the hot paths: loading a maze file, searching it and painting it.
+ * <p>
+ * Every benchmark runs on the src/testfiles corpus and on generated mazes of every MazeGenerator shape
+ * from 10 x 10 up to 5000 x 5000. Throughput mode reports ops/s, sample mode reports latency percentiles
+ * (p99 included), and the main method adds the GC profiler for allocation rate.
+ * <p>
+ * Run from project root with jmh-core and jmh-generator-annprocess on the class path:
+ * <pre>
+ * javac -cp jmh.jar -d out src/*.java bench/*.java
+ * java -cp jmh.jar:out MazeBenchmark [jmh options]
+ * </pre>
+ */
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MazeBenchmark {
+
+    private static final int IMAGE_SIZE = 1024;     // rendering target, large mazes are clipped to it
+
+    /**
+     * Run all benchmarks with GC profiler, extra arguments are ignored.
+     *
+     * @param args no usage
+     * @throws RunnerException benchmark run failed
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MazeBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    /**
+     * Maze from the test file corpus, together with its file.
+     */
+    @State(Scope.Benchmark)
+    public static class CorpusMaze {
+
+        @Param({"bigMaze", "mazeCycle", "mazeNoPath", "mazeNoPathCycle", "medMaze", "medMaze2", "medMaze2Reverse",
+                "medMaze3", "medWallAtEntrance", "medWallAtExit", "noWallsBig", "noWallsSmall", "smallMaze",
+                "smallest", "upperLeftMaze", "upperLeftMaze1"})
+        public String fileName;
+
+        Path file;
+        Maze maze;
+        MazeRenderTarget target;
+
+        /**
+         * Load maze once per trial.
+         *
+         * @throws IOException file can not be read
+         */
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            file = Paths.get("src", "testfiles", fileName);
+            maze = MazeLoader.load(file);
+            target = new MazeRenderTarget(maze);
+        }
+    }
+
+    /**
+     * Generated maze, written to a temporary text file for load benchmarks.
+     */
+    @State(Scope.Benchmark)
+    public static class GeneratedMaze {
+
+        @Param({"OPEN", "SPARSE", "PERFECT", "NO_PATH", "WEIGHTED"})
+        public MazeGenerator.Shape shape;
+
+        @Param({"10", "100", "1000", "5000"})
+        public int size;
+
+        Path file;
+        Maze maze;
+        MazeRenderTarget target;
+
+        /**
+         * Generate maze and its file once per trial.
+         *
+         * @throws IOException temporary file can not be written
+         */
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            maze = MazeGenerator.generate(shape, size, size, 42);
+            file = Files.createTempFile("maze-" + shape + "-" + size, ".txt");
+            MazeGenerator.writeText(maze, file);
+            target = new MazeRenderTarget(maze);
+        }
+
+        /**
+         * Remove temporary file.
+         *
+         * @throws IOException file can not be deleted
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Large open and sparse mazes searched by ParallelBfsSolver on a pool of given parallelism,
+     * parallelism 1 is the scaling baseline.
+     */
+    @State(Scope.Benchmark)
+    public static class ParallelMaze {
+
+        @Param({"OPEN", "SPARSE"})
+        public MazeGenerator.Shape shape;
+
+        @Param({"1000", "5000"})
+        public int size;
+
+        @Param({"1", "2", "4", "8", "16"})
+        public int parallelism;
+
+        Maze maze;
+        ForkJoinPool pool;
+
+        /**
+         * Generate maze and pool once per trial.
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            maze = MazeGenerator.generate(shape, size, size, 42);
+            pool = new ForkJoinPool(parallelism);
+            maze.setSolver(new ParallelBfsSolver(pool));
+        }
+
+        /**
+         * Stop pool workers.
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Off-screen image and component that paints a maze into it.
+     */
+    static class MazeRenderTarget {
+
+        final MazeComponent component;
+        final BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_RGB);
+
+        MazeRenderTarget(Maze maze) {
+            maze.search();      // render the path too
+            component = new MazeComponent(maze);
+            component.setSize(IMAGE_SIZE, IMAGE_SIZE);
+        }
+
+        BufferedImage paint() {
+            Graphics2D g2 = image.createGraphics();
+            try {
+                g2.setClip(0, 0, IMAGE_SIZE, IMAGE_SIZE);
+                component.paintComponent(g2);
+            } finally {
+                g2.dispose();
+            }
+            return image;
+        }
+    }
+
+    @Benchmark
+    public Maze loadCorpus(CorpusMaze state) throws IOException {
+        return MazeLoader.load(state.file);
+    }
+
+    @Benchmark
+    public boolean searchCorpus(CorpusMaze state) {
+        return state.maze.search();
+    }
+
+    @Benchmark
+    public BufferedImage renderCorpus(CorpusMaze state) {
+        return state.target.paint();
+    }
+
+    @Benchmark
+    public Maze loadGenerated(GeneratedMaze state) throws IOException {
+        return MazeLoader.load(state.file);
+    }
+
+    @Benchmark
+    public boolean searchGenerated(GeneratedMaze state) {
+        return state.maze.search();
+    }
+
+    @Benchmark
+    public BufferedImage renderGenerated(GeneratedMaze state) {
+        return state.target.paint();
+    }
+
+    @Benchmark
+    public boolean searchParallel(ParallelMaze state) {
+        return state.maze.search();
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * A* search toward exit with a pluggable heuristic.
+ * Open list is an IntMinHeap keyed by f = g + h, ties go to the larger g so the search keeps walking toward
+ * exit on open ground instead of widening. Returns a shortest path as long as the heuristic never
+ * overestimates and is consistent, as Manhattan distance is on a 4-connected grid.
+ * Distances, predecessors and the open list come from the thread's SearchContext, so a query near its target
+ * does not pay for clearing arrays of the whole grid.
+ */
+
+public class AStarSolver implements MazeSolver {
+
+    private final MazeHeuristic heuristic;
+
+    /**
+     * Create A* solver.
+     *
+     * @param heuristic estimate of remaining steps
+     */
+    public AStarSolver(MazeHeuristic heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * Search shortest path from entry to exit.
+     *
+     * @param grid  wall grid
+     * @param entry entry cell index
+     * @param exit  exit cell index
+     * @return search result
+     */
+    public MazeSearchResult solve(MazeGrid grid, int entry, int exit) {
+        return solve(grid, entry, exit, null);
+    }
+
+    /**
+     * Search shortest path from entry to exit, reporting the open list as frontier.
+     *
+     * @param grid    wall grid
+     * @param entry   entry cell index
+     * @param exit    exit cell index
+     * @param monitor progress receiver, or null
+     * @return search result, without path if search was cancelled
+     */
+    public MazeSearchResult solve(MazeGrid grid, int entry, int exit, SearchMonitor monitor) {
+        try (SearchContext context = SearchContext.acquire(grid.numCells())) {
+            int cols = grid.numCols();
+            int[] offsets = grid.neighborOffsets();
+            int expanded = 0;
+            int peak = 0;
+
+            /* distance (g, steps from entry) and predecessor count only if stamp is this generation. */
+            int generation = context.generation;
+            int[] stamp = context.stamp;
+            int[] distance = context.distance();
+            int[] predecessor = context.predecessor;
+            IntMinHeap open = context.open();
+
+            stamp[entry] = generation;
+            distance[entry] = 0;
+            predecessor[entry] = entry;
+            open.insertOrUpdate(entry, key(grid, entry, exit, 0));
+            int[] sample = monitor == null ? null : new int[SearchMonitor.SAMPLE_SIZE];
+
+            while (!open.isEmpty()) {
+                if (monitor != null && (expanded & (SearchMonitor.REPORT_INTERVAL - 1)) == 0) {
+                    int count = SearchMonitor.sample(open::elementAt, open.size(), sample);
+                    if (!monitor.progress(expanded, open.size(), sample, count)) {
+                        return new MazeSearchResult(null, expanded).withPeakFrontier(peak);
+                    }
+                }
+                int current = open.poll();
+                expanded++;
+                if (current == exit) {
+                    return MazeSearchResult.fromPredecessors(predecessor, entry, exit, expanded).withPeakFrontier(peak);
+                }
+                int row = current / cols;
+                int steps = distance[current] + 1;
+                for (int free = grid.freeNeighbors(row, current - row * cols); free != 0; free &= free - 1) {
+                    int next = current + offsets[Integer.numberOfTrailingZeros(free)];
+                    if (stamp[next] != generation || steps < distance[next]) {
+                        stamp[next] = generation;
+                        distance[next] = steps;
+                        predecessor[next] = current;
+                        open.insertOrUpdate(next, key(grid, next, exit, steps));
+                    }
+                }
+                if (SearchMetrics.ENABLED && open.size() > peak) {
+                    peak = open.size();
+                }
+            }
+            return new MazeSearchResult(null, expanded).withPeakFrontier(peak);
+        }
+    }
+
+    /**
+     * Heap key of a cell, f in the high half and inverted g in the low half.
+     *
+     * @param grid  wall grid
+     * @param cell  cell index
+     * @param exit  exit cell index
+     * @param steps g of cell
+     * @return heap key
+     */
+    private long key(MazeGrid grid, int cell, int exit, int steps) {
+        long f = (long) steps + heuristic.estimate(grid, cell, exit);
+        return f << 32 | (0xFFFFFFFFL - steps);
+    }
+}
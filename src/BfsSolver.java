@@ -0,0 +1,150 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Breadth-first search, returns a shortest path.
+ * Runs iteratively with an int queue and a flat predecessor array, O(cells) time and no recursion.
+ * Cells stay packed int indices throughout, neighbors are reached by index offsets, so nothing is allocated per
+ * expanded cell. The arrays come from the thread's SearchContext, so a search costs time in the cells it
+ * reaches, not in the size of the grid, and any number of threads can search one grid at once.
+ * On a TiledMazeGrid the search keeps one byte per cell and the queue in a PagedSearchState instead, which pages
+ * them to a temporary file within the grid's cache budget, so it runs on mazes that only fit in memory in tiles.
+ * Neighbors are expanded in order up, down, left, right.
+ */
+
+public class BfsSolver implements MazeSolver {
+
+    /**
+     * Search shortest path from entry to exit.
+     *
+     * @param grid  wall grid
+     * @param entry entry cell index
+     * @param exit  exit cell index
+     * @return search result
+     */
+    public MazeSearchResult solve(MazeGrid grid, int entry, int exit) {
+        return solve(grid, entry, exit, null);
+    }
+
+    /**
+     * Search shortest path from entry to exit, reporting the queue as frontier.
+     *
+     * @param grid    wall grid
+     * @param entry   entry cell index
+     * @param exit    exit cell index
+     * @param monitor progress receiver, or null
+     * @return search result, without path if search was cancelled
+     */
+    public MazeSearchResult solve(MazeGrid grid, int entry, int exit, SearchMonitor monitor) {
+        if (grid instanceof TiledMazeGrid) {
+            return solvePaged((TiledMazeGrid) grid, entry, exit, monitor);
+        }
+        try (SearchContext context = SearchContext.acquire(grid.numCells())) {
+            int cols = grid.numCols();
+            int[] offsets = grid.neighborOffsets();
+            int expanded = 0;
+            int peak = 0;
+
+            /* predecessor[i] is the cell i was reached from, if stamp[i] is this generation. */
+            int generation = context.generation;
+            int[] stamp = context.stamp;
+            int[] predecessor = context.predecessor;
+            stamp[entry] = generation;
+            predecessor[entry] = entry;
+
+            /* Every cell is enqueued at most once. */
+            int[] queue = context.queue();
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = entry;
+            int[] sample = monitor == null ? null : new int[SearchMonitor.SAMPLE_SIZE];
+
+            while (head != tail) {
+                if (monitor != null && (expanded & (SearchMonitor.REPORT_INTERVAL - 1)) == 0) {
+                    int first = head;
+                    int count = SearchMonitor.sample(i -> queue[first + i], tail - head, sample);
+                    if (!monitor.progress(expanded, tail - head, sample, count)) {
+                        return new MazeSearchResult(null, expanded).withPeakFrontier(peak);
+                    }
+                }
+                int current = queue[head++];
+                expanded++;
+                if (current == exit) {
+                    return MazeSearchResult.fromPredecessors(predecessor, entry, exit, expanded).withPeakFrontier(peak);
+                }
+                int row = current / cols;
+
+                /* Expand free neighbors up, down, left, right. */
+                for (int free = grid.freeNeighbors(row, current - row * cols); free != 0; free &= free - 1) {
+                    int next = current + offsets[Integer.numberOfTrailingZeros(free)];
+                    if (stamp[next] != generation) {
+                        stamp[next] = generation;
+                        predecessor[next] = current;
+                        queue[tail++] = next;
+                    }
+                }
+                if (SearchMetrics.ENABLED && tail - head > peak) {
+                    peak = tail - head;
+                }
+            }
+            return new MazeSearchResult(null, expanded).withPeakFrontier(peak);
+        }
+    }
+
+    /**
+     * Search shortest path on a tiled grid with paged search state.
+     *
+     * @param grid    tiled wall grid
+     * @param entry   entry cell index
+     * @param exit    exit cell index
+     * @param monitor progress receiver, or null
+     * @return search result, without path if search was cancelled
+     * @throws UncheckedIOException search state file can not be created, read or written
+     */
+    private MazeSearchResult solvePaged(TiledMazeGrid grid, int entry, int exit, SearchMonitor monitor) {
+        try (PagedSearchState state = new PagedSearchState(grid, grid.getCacheBytes())) {
+            int cols = grid.numCols();
+            int[] offsets = grid.neighborOffsets();
+            int expanded = 0;
+            long peak = 0;
+
+            /* A cell's code is the direction it was reached by, so the predecessor follows from the offset. */
+            state.set(entry / cols, entry % cols, PagedSearchState.ENTRY);
+            state.enqueue(entry);
+            int[] sample = monitor == null ? null : new int[SearchMonitor.SAMPLE_SIZE];
+
+            while (state.size() != 0) {
+                if (monitor != null && (expanded & (SearchMonitor.REPORT_INTERVAL - 1)) == 0) {
+                    int count = state.sampleFrontier(sample);
+                    if (!monitor.progress(expanded, (int) Math.min(Integer.MAX_VALUE, state.size()), sample, count)) {
+                        return new MazeSearchResult(null, expanded).withPeakFrontier((int) peak);
+                    }
+                }
+                int current = state.dequeue();
+                expanded++;
+                if (current == exit) {
+                    return new MazeSearchResult(state.pathTo(exit, cols, offsets), expanded)
+                            .withPeakFrontier((int) peak);
+                }
+                int row = current / cols;
+
+                /* Expand free neighbors up, down, left, right. */
+                for (int free = grid.freeNeighbors(row, current - row * cols); free != 0; free &= free - 1) {
+                    int direction = Integer.numberOfTrailingZeros(free);
+                    int next = current + offsets[direction];
+                    int nextRow = next / cols;
+                    if (state.get(nextRow, next - nextRow * cols) == 0) {
+                        state.set(nextRow, next - nextRow * cols, direction + 1);
+                        state.enqueue(next);
+                    }
+                }
+                if (SearchMetrics.ENABLED && state.size() > peak) {
+                    peak = state.size();
+                }
+            }
+            return new MazeSearchResult(null, expanded).withPeakFrontier((int) peak);
+        } catch (IOException exc) {
+            throw new UncheckedIOException("Can not keep search state of tiled grid", exc);
+        }
+    }
+}
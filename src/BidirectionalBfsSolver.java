@@ -0,0 +1,186 @@
+/**
+ * Breadth-first search grown from entry and exit at the same time, returns a shortest path.
+ * <p>
+ * Each round expands one whole level of the smaller frontier. The first time a side reaches a cell already
+ * reached by the other side the path is stitched there: every cell within the expanded levels of both sides
+ * is reached by only one side, so no shorter path can exist. If either frontier runs out before that,
+ * exit is not reachable.
+ * <p>
+ * Both queues share one int array, forward queue grows from the front and backward queue from the back;
+ * a cell is only ever enqueued by one side, so the array never overflows. For the same reason both sides share
+ * one predecessor array: the forward side stores the cell a cell was reached from, the backward side its
+ * complement, so the sign tells the sides apart. Stamps, predecessors and the queue come from the thread's
+ * SearchContext, so concurrent queries on a shared grid do not allocate per-cell arrays.
+ */
+
+public class BidirectionalBfsSolver implements MazeSolver {
+
+    /**
+     * Search shortest path from entry to exit.
+     *
+     * @param grid  wall grid
+     * @param entry entry cell index
+     * @param exit  exit cell index
+     * @return search result
+     */
+    public MazeSearchResult solve(MazeGrid grid, int entry, int exit) {
+        if (entry == exit) {
+            return new MazeSearchResult(new int[]{entry}, 1);
+        }
+
+        try (SearchContext context = SearchContext.acquire(grid.numCells())) {
+            return search(grid, entry, exit, context);
+        }
+    }
+
+    /**
+     * Grow both sides until they meet or one runs out.
+     *
+     * @param grid    wall grid
+     * @param entry   entry cell index
+     * @param exit    exit cell index, not entry
+     * @param context scratch of this search
+     * @return search result
+     */
+    private static MazeSearchResult search(MazeGrid grid, int entry, int exit, SearchContext context) {
+        Frontier forward = new Frontier(grid, context, entry, 0, 1);
+        Frontier backward = new Frontier(grid, context, exit, grid.numCells() - 1, -1);
+        int expanded = 0;
+        int peak = 2;
+
+        while (!forward.isEmpty() && !backward.isEmpty()) {
+            boolean expandForward = forward.size() <= backward.size();
+            Frontier own = expandForward ? forward : backward;
+            peak = Math.max(peak, forward.size() + backward.size());
+
+            /* Expand one whole level of the smaller side. */
+            int levelEnd = own.tail;
+            while (own.head != levelEnd) {
+                int current = own.pop();
+                expanded++;
+                int meet = own.expand(current);
+                if (meet >= 0) {
+                    MazeSearchResult result = expandForward
+                            ? stitch(context.predecessor, entry, exit, current, meet, expanded)
+                            : stitch(context.predecessor, entry, exit, meet, current, expanded);
+                    return result.withPeakFrontier(peak);
+                }
+            }
+        }
+        return new MazeSearchResult(null, expanded).withPeakFrontier(peak);
+    }
+
+    /**
+     * Join the two half paths at an edge between a forward cell and a backward cell.
+     *
+     * @param predecessor  predecessors toward entry, complements of successors toward exit
+     * @param entry        entry cell index
+     * @param exit         exit cell index
+     * @param forwardCell  cell reached from entry
+     * @param backwardCell neighbor of forwardCell reached from exit
+     * @param expanded     cells expanded
+     * @return result with the whole path
+     */
+    private static MazeSearchResult stitch(int[] predecessor, int entry, int exit,
+                                           int forwardCell, int backwardCell, int expanded) {
+        int forwardLength = 1;
+        for (int cell = forwardCell; cell != entry; cell = predecessor[cell]) {
+            forwardLength++;
+        }
+        int backwardLength = 1;
+        for (int cell = backwardCell; cell != exit; cell = ~predecessor[cell]) {
+            backwardLength++;
+        }
+        int[] path = new int[forwardLength + backwardLength];
+        for (int cell = forwardCell, i = forwardLength - 1; i >= 0; cell = predecessor[cell], i--) {
+            path[i] = cell;
+        }
+        for (int cell = backwardCell, i = forwardLength; i < path.length; cell = ~predecessor[cell], i++) {
+            path[i] = cell;
+        }
+        return new MazeSearchResult(path, expanded);
+    }
+
+    /**
+     * Search state of one side.
+     */
+    private static final class Frontier {
+
+        final MazeGrid grid;
+        final int cols;
+        final int[] offsets;        // neighbor index steps of grid
+        final int[] stamp;          // generation that last reached each cell, from either side
+        final int[] predecessor;    // cell each cell was reached from, complemented on the backward side
+        final int generation;
+        final int[] queue;
+        final int step;             // 1 if queue grows upward and side is forward, -1 if downward and backward
+        int head;
+        int tail;
+
+        /**
+         * Create side that starts at origin.
+         *
+         * @param grid    wall grid
+         * @param context scratch shared by both sides
+         * @param origin  entry or exit cell index
+         * @param start   first queue slot of this side
+         * @param step    queue direction, 1 for the forward side
+         */
+        Frontier(MazeGrid grid, SearchContext context, int origin, int start, int step) {
+            this.grid = grid;
+            this.cols = grid.numCols();
+            this.offsets = grid.neighborOffsets();
+            this.stamp = context.stamp;
+            this.predecessor = context.predecessor;
+            this.generation = context.generation;
+            this.queue = context.queue();
+            this.step = step;
+            stamp[origin] = generation;
+            predecessor[origin] = step > 0 ? origin : ~origin;
+            head = start;
+            tail = start;
+            push(origin);
+        }
+
+        boolean isEmpty() {
+            return head == tail;
+        }
+
+        int size() {
+            return (tail - head) * step;
+        }
+
+        void push(int cell) {
+            queue[tail] = cell;
+            tail += step;
+        }
+
+        int pop() {
+            int cell = queue[head];
+            head += step;
+            return cell;
+        }
+
+        /**
+         * Reach free neighbors of a cell, in order up, down, left, right.
+         *
+         * @param current cell being expanded
+         * @return first neighbor already reached by other side, or -1
+         */
+        int expand(int current) {
+            int row = current / cols;
+            int from = step > 0 ? current : ~current;
+            for (int free = grid.freeNeighbors(row, current - row * cols); free != 0; free &= free - 1) {
+                int next = current + offsets[Integer.numberOfTrailingZeros(free)];
+                if (stamp[next] != generation) {
+                    stamp[next] = generation;
+                    predecessor[next] = from;
+                    push(next);
+                } else if ((predecessor[next] ^ from) < 0) {
+                    return next;    // sign differs, reached by the other side
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+import java.util.Arrays;
+
+/**
+ * Connected component label of every free cell, for O(1) reachability checks.
+ * <p>
+ * Built in one scanline pass: every run of free cells in a row gets a provisional label, which is united
+ * with the label of each free cell right above the run through union-find. A second pass replaces
+ * provisional labels by their compact root number. Two free cells are connected exactly when their
+ * labels are equal.
+ */
+
+public class ComponentIndex {
+
+    private final int[] labels;         // 0 for walls, 1..componentCount for free cells
+    private final int componentCount;
+
+    /**
+     * Create index with labels already computed.
+     *
+     * @param labels         label per cell
+     * @param componentCount number of components
+     */
+    private ComponentIndex(int[] labels, int componentCount) {
+        this.labels = labels;
+        this.componentCount = componentCount;
+    }
+
+    /**
+     * Label every free cell of a grid.
+     *
+     * @param grid wall grid
+     * @return component index of grid
+     */
+    public static ComponentIndex build(MazeGrid grid) {
+        int rows = grid.numRows();
+        int cols = grid.numCols();
+        int[] labels = new int[grid.numCells()];
+        int[] parent = new int[64];
+        int count = 0;
+
+        /* Pass 1: provisional label per run, united with free cells above. */
+        for (int i = 0; i < rows; i++) {
+            int runLabel = 0;
+            for (int j = 0; j < cols; j++) {
+                if (grid.hasWall(i, j)) {
+                    runLabel = 0;
+                    continue;
+                }
+                if (runLabel == 0) {
+                    if (++count == parent.length) {
+                        parent = Arrays.copyOf(parent, parent.length * 2);
+                    }
+                    parent[count] = count;
+                    runLabel = count;
+                }
+                int cell = i * cols + j;
+                labels[cell] = runLabel;
+                if (i > 0 && labels[cell - cols] != 0) {
+                    union(parent, runLabel, labels[cell - cols]);
+                }
+            }
+        }
+
+        /* Pass 2: number roots 1, 2, ... and relabel cells. */
+        int[] compact = new int[count + 1];
+        int components = 0;
+        for (int label = 1; label <= count; label++) {
+            int root = find(parent, label);
+            if (compact[root] == 0) {
+                compact[root] = ++components;
+            }
+            compact[label] = compact[root];
+        }
+        for (int cell = 0; cell < labels.length; cell++) {
+            labels[cell] = compact[labels[cell]];
+        }
+        return new ComponentIndex(labels, components);
+    }
+
+    /**
+     * Get component label of a cell.
+     *
+     * @param cell cell index
+     * @return label, 0 for walls
+     */
+    public int labelOf(int cell) {
+        return labels[cell];
+    }
+
+    /**
+     * Get number of connected components of free cells.
+     *
+     * @return component count
+     */
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    /**
+     * Check if two cells are connected by free cells.
+     *
+     * @param from cell index
+     * @param to   cell index
+     * @return true if both cells are free and in the same component
+     */
+    public boolean isConnected(int from, int to) {
+        return labels[from] != 0 && labels[from] == labels[to];
+    }
+
+    /**
+     * Find root of a provisional label, halving the path on the way.
+     *
+     * @param parent union-find parents
+     * @param label  provisional label
+     * @return root label
+     */
+    private static int find(int[] parent, int label) {
+        while (parent[label] != label) {
+            parent[label] = parent[parent[label]];
+            label = parent[label];
+        }
+        return label;
+    }
+
+    /**
+     * Unite two provisional labels, smaller root becomes parent.
+     *
+     * @param parent union-find parents
+     * @param a      provisional label
+     * @param b      provisional label
+     */
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA < rootB) {
+            parent[rootB] = rootA;
+        } else if (rootB < rootA) {
+            parent[rootA] = rootB;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+import java.util.Arrays;
+
+/**
+ * Dijkstra search on cell weights (see MazeGrid.getWeight), returns a cheapest path.
+ * <p>
+ * Instead of a comparison heap the open list is a monotone bucket queue (Dial's algorithm): as no step costs more
+ * than MazeGrid.getMaxWeight(), every open cell lies within maxWeight of the cost being expanded, so
+ * maxWeight + 1 circular buckets indexed by cost modulo their count hold all of them. Pushing and popping are
+ * O(1) and a whole search is O(cells + path cost), linear in the grid for the bounded weights a grid holds.
+ * A cell whose cost drops is pushed again and its older entry skipped when popped, so there is no decrease-key.
+ * On an unweighted grid this is breadth-first search with two buckets. Stamps, predecessors and costs come from
+ * the thread's SearchContext like in BfsSolver.
+ */
+
+public class DijkstraSolver implements MazeSolver {
+
+    private static final int INITIAL_BUCKET_SIZE = 64;
+
+    /**
+     * Search cheapest path from entry to exit.
+     *
+     * @param grid  wall grid with weights
+     * @param entry entry cell index
+     * @param exit  exit cell index
+     * @return search result with path cost
+     */
+    public MazeSearchResult solve(MazeGrid grid, int entry, int exit) {
+        return solve(grid, entry, exit, null);
+    }
+
+    /**
+     * Search cheapest path from entry to exit, reporting the bucket being expanded as frontier sample.
+     *
+     * @param grid    wall grid with weights
+     * @param entry   entry cell index
+     * @param exit    exit cell index
+     * @param monitor progress receiver, or null
+     * @return search result with path cost, without path if search was cancelled
+     * @throws IllegalArgumentException path costs of grid may not fit in an int
+     */
+    public MazeSearchResult solve(MazeGrid grid, int entry, int exit, SearchMonitor monitor) {
+        int span = grid.getMaxWeight() + 1;
+        if ((long) (span - 1) * grid.numCells() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Path costs of " + grid.numCells() + " cells of weight up to "
+                    + (span - 1) + " overflow");
+        }
+        try (SearchContext context = SearchContext.acquire(grid.numCells())) {
+            int cols = grid.numCols();
+            int[] offsets = grid.neighborOffsets();
+            int expanded = 0;
+            int peak = 0;
+
+            /* distance[i] is the cheapest cost to i found so far and predecessor[i] its last step, if stamped. */
+            int generation = context.generation;
+            int[] stamp = context.stamp;
+            int[] predecessor = context.predecessor;
+            int[] distance = context.distance();
+            stamp[entry] = generation;
+            predecessor[entry] = entry;
+            distance[entry] = 0;
+
+            /* Bucket cost % span holds the open cells of that cost, stale entries included. */
+            int[][] buckets = new int[span][INITIAL_BUCKET_SIZE];
+            int[] sizes = new int[span];
+            buckets[0][sizes[0]++] = entry;
+            int open = 1;
+            int cost = 0;
+            int bucket = 0;
+            int[] sample = monitor == null ? null : new int[SearchMonitor.SAMPLE_SIZE];
+
+            while (open > 0) {
+                if (sizes[bucket] == 0) {
+                    cost++;
+                    bucket = bucket + 1 == span ? 0 : bucket + 1;
+                    continue;
+                }
+                int current = buckets[bucket][--sizes[bucket]];
+                open--;
+                if (distance[current] != cost) {
+                    continue;       // reached cheaper since this entry was pushed
+                }
+                if (monitor != null && (expanded & (SearchMonitor.REPORT_INTERVAL - 1)) == 0) {
+                    int[] cells = buckets[bucket];
+                    int count = SearchMonitor.sample(i -> cells[i], sizes[bucket], sample);
+                    if (!monitor.progress(expanded, open, sample, count)) {
+                        return new MazeSearchResult(null, expanded).withPeakFrontier(peak);
+                    }
+                }
+                expanded++;
+                if (current == exit) {
+                    return MazeSearchResult.fromPredecessors(predecessor, entry, exit, expanded).withCost(cost)
+                            .withPeakFrontier(peak);
+                }
+                int row = current / cols;
+
+                /* Relax free neighbors up, down, left, right. */
+                for (int free = grid.freeNeighbors(row, current - row * cols); free != 0; free &= free - 1) {
+                    int next = current + offsets[Integer.numberOfTrailingZeros(free)];
+                    int weight = grid.getWeight(next);
+                    if (stamp[next] != generation || cost + weight < distance[next]) {
+                        stamp[next] = generation;
+                        predecessor[next] = current;
+                        distance[next] = cost + weight;
+                        int target = bucket + weight < span ? bucket + weight : bucket + weight - span;
+                        if (sizes[target] == buckets[target].length) {
+                            buckets[target] = Arrays.copyOf(buckets[target], sizes[target] * 2);
+                        }
+                        buckets[target][sizes[target]++] = next;
+                        open++;
+                    }
+                }
+                if (SearchMetrics.ENABLED && open > peak) {
+                    peak = open;
+                }
+            }
+            return new MazeSearchResult(null, expanded).withPeakFrontier(peak);
+        }
+    }
+}
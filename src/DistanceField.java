@@ -0,0 +1,152 @@
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Distance of every cell to one exit, computed once by breadth-first search backwards from the exit.
+ * The field never changes after creation, so it can be shared between threads and queries. Distance and
+ * path of any entry are then read in O(path length) by stepping to a neighbor one step closer each time.
+ */
+
+public class DistanceField {
+
+    private final int rows;
+    private final int cols;
+    private final int exit;
+    private final IntBuffer distances;      // -1 for walls and cells that can not reach exit
+
+    /**
+     * Create field on existing distances, for example the distance field of a binary maze file.
+     *
+     * @param rows      number of rows
+     * @param cols      number of columns
+     * @param exit      exit cell index
+     * @param distances rows * cols distances, -1 for unreachable cells; used in place
+     */
+    public DistanceField(int rows, int cols, int exit, IntBuffer distances) {
+        if (distances.capacity() < (long) rows * cols) {
+            throw new IllegalArgumentException("Not enough distances for " + rows + " x " + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.exit = exit;
+        this.distances = distances.asReadOnlyBuffer();
+    }
+
+    /**
+     * Compute distance field of an exit.
+     *
+     * @param grid wall grid
+     * @param exit exit cell index, inside the grid
+     * @return distance field, all cells unreachable if exit is a wall
+     */
+    public static DistanceField compute(MazeGrid grid, int exit) {
+        int rows = grid.numRows();
+        int cols = grid.numCols();
+        int[] distances = new int[grid.numCells()];
+        Arrays.fill(distances, -1);
+        if (grid.hasWall(exit / cols, exit % cols)) {
+            return new DistanceField(rows, cols, exit, IntBuffer.wrap(distances));
+        }
+
+        int[] queue = new int[grid.numCells()];
+        int[] offsets = grid.neighborOffsets();
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = exit;
+        distances[exit] = 0;
+        while (head < tail) {
+            int current = queue[head++];
+            int row = current / cols;
+            int steps = distances[current] + 1;
+            for (int free = grid.freeNeighbors(row, current - row * cols); free != 0; free &= free - 1) {
+                int next = current + offsets[Integer.numberOfTrailingZeros(free)];
+                if (distances[next] < 0) {
+                    distances[next] = steps;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return new DistanceField(rows, cols, exit, IntBuffer.wrap(distances));
+    }
+
+    /**
+     * Get exit this field leads to.
+     *
+     * @return exit cell index
+     */
+    public int getExit() {
+        return exit;
+    }
+
+    /**
+     * Get steps from a cell to exit.
+     *
+     * @param cell cell index
+     * @return steps, or -1 if cell is a wall or can not reach exit
+     */
+    public int distanceOf(int cell) {
+        return distances.get(cell);
+    }
+
+    /**
+     * Get a shortest path from a cell to exit, reversed from the usual order so it starts at the given cell.
+     *
+     * @param entry entry cell index
+     * @return cell indices from entry to exit, or null if exit is not reachable
+     */
+    public int[] pathFrom(int entry) {
+        int distance = distances.get(entry);
+        if (distance < 0) {
+            return null;
+        }
+        int[] path = new int[distance + 1];
+        int cell = entry;
+        for (int i = 0; i < distance; i++) {
+            path[i] = cell;
+            cell = closerNeighbor(cell, distance - i - 1);
+        }
+        path[distance] = cell;
+        return path;
+    }
+
+    /**
+     * Step one cell toward exit, for walking a path without building it, for example to stream it.
+     *
+     * @param cell cell index that can reach exit and is not exit
+     * @return neighbor one step closer to exit
+     */
+    public int stepToward(int cell) {
+        return closerNeighbor(cell, distances.get(cell) - 1);
+    }
+
+    /**
+     * Find neighbor one step closer to exit, trying up, down, left, right.
+     *
+     * @param cell   current cell index
+     * @param target distance of wanted neighbor
+     * @return neighbor cell index
+     */
+    private int closerNeighbor(int cell, int target) {
+        int row = cell / cols;
+        int col = cell - row * cols;
+        if (row > 0 && distances.get(cell - cols) == target) {
+            return cell - cols;
+        }
+        if (row < rows - 1 && distances.get(cell + cols) == target) {
+            return cell + cols;
+        }
+        if (col > 0 && distances.get(cell - 1) == target) {
+            return cell - 1;
+        }
+        return cell + 1;
+    }
+
+    /**
+     * Get memory used by distances.
+     *
+     * @return size in bytes
+     */
+    public long byteSize() {
+        return (long) distances.capacity() * Integer.BYTES;
+    }
+}
@@ -0,0 +1,220 @@
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Least recently used cache of distance fields per (grid, exit).
+ * Grids are told apart by identity and version, so a field of a grid whose walls changed is never returned.
+ * Fields are evicted, least recently used first, once their total size exceeds the byte budget; the field just
+ * computed is always kept even if it alone exceeds the budget.
+ * Hit and miss counters and memory use can be read for sizing the budget. All methods are thread-safe.
+ */
+
+public class DistanceFieldCache {
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, DistanceField> fields = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Key, CompletableFuture<DistanceField>> pending = new HashMap<>();   // being computed
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long coalesced;
+    private long evictions;
+
+    /**
+     * Create empty cache.
+     *
+     * @param maxBytes memory budget of cached distances in bytes
+     */
+    public DistanceFieldCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Get distance field of exit in grid, computing it on a miss.
+     * Computing happens outside the lock. Lookups of a key that is being computed by another thread wait for
+     * that computation instead of starting their own, so concurrent queries toward one exit share one search.
+     *
+     * @param grid wall grid
+     * @param exit exit cell index
+     * @return distance field
+     */
+    public DistanceField get(MazeGrid grid, int exit) {
+        Key key = new Key(grid, exit);
+        CompletableFuture<DistanceField> computing;
+        synchronized (this) {
+            DistanceField field = fields.get(key);
+            if (field != null) {
+                hits++;
+                return field;
+            }
+            computing = pending.get(key);
+            if (computing != null) {
+                coalesced++;
+            } else {
+                misses++;
+                pending.put(key, new CompletableFuture<>());
+            }
+        }
+        if (computing != null) {
+            return computing.join();
+        }
+
+        DistanceField field;
+        try {
+            field = DistanceField.compute(grid, exit);
+        } catch (RuntimeException | Error exc) {
+            synchronized (this) {
+                pending.remove(key).completeExceptionally(exc);
+            }
+            throw exc;
+        }
+        synchronized (this) {
+            DistanceField previous = fields.put(key, field);
+            if (previous != null) {
+                bytes -= previous.byteSize();
+            }
+            bytes += field.byteSize();
+            evict(key);
+            pending.remove(key).complete(field);
+        }
+        return field;
+    }
+
+    /**
+     * Add a field that was not computed by the cache, for example the one stored in a binary maze file.
+     * It is kept and evicted like a computed field. The field must match the current walls of grid.
+     *
+     * @param grid  wall grid the field belongs to
+     * @param field distances to field.getExit()
+     */
+    public synchronized void put(MazeGrid grid, DistanceField field) {
+        Key key = new Key(grid, field.getExit());
+        DistanceField previous = fields.put(key, field);
+        if (previous != null) {
+            bytes -= previous.byteSize();
+        }
+        bytes += field.byteSize();
+        evict(key);
+    }
+
+    /**
+     * Remove all fields.
+     */
+    public synchronized void clear() {
+        fields.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Get number of cached fields.
+     *
+     * @return cached fields
+     */
+    public synchronized int size() {
+        return fields.size();
+    }
+
+    /**
+     * Get memory used by cached fields.
+     *
+     * @return size in bytes
+     */
+    public synchronized long byteSize() {
+        return bytes;
+    }
+
+    /**
+     * Get number of lookups answered from cache.
+     *
+     * @return hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Get number of lookups that had to compute a field.
+     *
+     * @return misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Get number of lookups that waited for a field another thread was computing.
+     *
+     * @return coalesced lookups, counted neither as hit nor as miss
+     */
+    public synchronized long getCoalesced() {
+        return coalesced;
+    }
+
+    /**
+     * Get fraction of lookups answered from cache.
+     *
+     * @return hit rate between 0 and 1, 0 before first lookup
+     */
+    public synchronized double getHitRate() {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    /**
+     * Report cache state in one line.
+     *
+     * @return statistics string
+     */
+    public synchronized String toString() {
+        return String.format("DistanceFieldCache[fields=%d,bytes=%d,maxBytes=%d,hits=%d,misses=%d,coalesced=%d,"
+                + "hitRate=%.3f,evictions=%d]", fields.size(), bytes, maxBytes, hits, misses, coalesced, getHitRate(),
+                evictions);
+    }
+
+    /**
+     * Drop least recently used fields until cache fits its budget.
+     *
+     * @param keep key that must stay
+     */
+    private void evict(Key keep) {
+        Iterator<Map.Entry<Key, DistanceField>> iter = fields.entrySet().iterator();
+        while (bytes > maxBytes && iter.hasNext()) {
+            Map.Entry<Key, DistanceField> eldest = iter.next();
+            if (!eldest.getKey().equals(keep)) {
+                bytes -= eldest.getValue().byteSize();
+                evictions++;
+                iter.remove();
+            }
+        }
+    }
+
+    /**
+     * Cache key: grid by identity, wall version and exit cell.
+     */
+    private static final class Key {
+
+        final MazeGrid grid;
+        final long version;
+        final int exit;
+
+        Key(MazeGrid grid, int exit) {
+            this.grid = grid;
+            this.version = grid.getVersion();
+            this.exit = exit;
+        }
+
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key otherKey = (Key) other;
+            return grid == otherKey.grid && version == otherKey.version && exit == otherKey.exit;
+        }
+
+        public int hashCode() {
+            return System.identityHashCode(grid) * 31 + exit;
+        }
+    }
+}
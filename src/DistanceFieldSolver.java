@@ -0,0 +1,50 @@
+/**
+ * Solver for many queries against the same exit.
+ * The first query of a (grid, exit) computes a DistanceField through the cache, later queries with any entry
+ * only follow decreasing distances, O(path length). Expanded count is the number of path cells walked.
+ */
+
+public class DistanceFieldSolver implements MazeSolver {
+
+    public static final long DEFAULT_CACHE_BYTES = 256L << 20;
+
+    private final DistanceFieldCache cache;
+
+    /**
+     * Create solver with its own cache of default budget.
+     */
+    public DistanceFieldSolver() {
+        this(new DistanceFieldCache(DEFAULT_CACHE_BYTES));
+    }
+
+    /**
+     * Create solver on a cache, which may be shared with other solvers.
+     *
+     * @param cache distance field cache
+     */
+    public DistanceFieldSolver(DistanceFieldCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Get cache of this solver.
+     *
+     * @return distance field cache
+     */
+    public DistanceFieldCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Answer path from entry to exit through the distance field of exit.
+     *
+     * @param grid  wall grid
+     * @param entry entry cell index
+     * @param exit  exit cell index
+     * @return search result
+     */
+    public MazeSearchResult solve(MazeGrid grid, int entry, int exit) {
+        int[] path = cache.get(grid, exit).pathFrom(entry);
+        return new MazeSearchResult(path, path == null ? 0 : path.length);
+    }
+}
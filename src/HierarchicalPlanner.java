@@ -0,0 +1,642 @@
+import java.util.Arrays;
+
+/**
+ * Hierarchical path-finding A* (HPA*) over fixed-size square clusters of the grid.
+ * <p>
+ * Preprocessing splits the grid into clusters and finds entrances on every border between two clusters:
+ * each maximal run of cell pairs free on both sides gives one transition in its middle, or two at its ends
+ * when the run is long. Transition cells are the nodes of an abstract graph, with edges of cost 1 across
+ * borders and intra-cluster edges whose cost is the BFS distance inside the cluster.
+ * <p>
+ * A query connects entry and exit to the nodes of their clusters by a BFS inside the cluster, runs A* on the
+ * small abstract graph and returns its length right away. The cell path is refined, one cluster-local BFS per
+ * abstract edge, only when MazeSearchResult.getPath is called, with scratch of its own so it may run on another
+ * thread than the next search. Paths are shortest among paths through transition cells, which is all A* on the
+ * abstract graph guarantees: nothing bounds how much longer they are than a shortest path. Against BFS they
+ * came out up to about 40% longer on sparse mazes and up to twice as long on small ones with small clusters.
+ * <p>
+ * Wall changes reported as MazeChangeListener only mark the touched cluster; before the next query its
+ * borders and the intra edges of it and its four neighbors are rebuilt. Results of earlier searches are
+ * dropped by a wall change: their getPath throws IllegalStateException if it was not called before.
+ */
+
+public class HierarchicalPlanner implements MazeSolver, MazeChangeListener {
+
+    public static final int DEFAULT_CLUSTER_SIZE = 32;
+
+    private static final int LONG_ENTRANCE = 6;     // runs at least this long get two transitions
+
+    private final int clusterSize;
+
+    private MazeGrid grid;
+    private long version = -1;              // grid version the abstraction is built for, apart from dirty clusters
+    private int clusterRows;
+    private int clusterCols;
+    private int[][] verticalBorders;        // per border right of a cluster: cells left of transitions
+    private int[][] horizontalBorders;      // per border below a cluster: cells above transitions
+    private int[][] clusterNodes;           // per cluster: sorted node cells
+    private int[][] clusterDistances;       // per cluster: n * n intra distances, -1 if not connected
+    private boolean[] dirty;
+    private boolean anyDirty;
+    private LocalSearch local;              // cluster-local BFS of build and solve, refinements have their own
+    private volatile int epoch;             // increased by every build and wall change, refinements check it
+
+    /**
+     * Create planner with default cluster size.
+     */
+    public HierarchicalPlanner() {
+        this(DEFAULT_CLUSTER_SIZE);
+    }
+
+    /**
+     * Create planner.
+     *
+     * @param clusterSize width and height of a cluster in cells, at least 2
+     */
+    public HierarchicalPlanner(int clusterSize) {
+        if (clusterSize < 2) {
+            throw new IllegalArgumentException("Cluster size must be at least 2: " + clusterSize);
+        }
+        this.clusterSize = clusterSize;
+    }
+
+    /**
+     * Search path from entry to exit on the abstract graph, refining to cells lazily.
+     *
+     * @param grid  wall grid
+     * @param entry entry cell index
+     * @param exit  exit cell index
+     * @return search result, expanded count is abstract nodes plus cells touched connecting entry and exit
+     */
+    public synchronized MazeSearchResult solve(MazeGrid grid, int entry, int exit) {
+        if (grid != this.grid || grid.getVersion() != version) {
+            build(grid);
+        } else if (anyDirty) {
+            rebuildDirty();
+        }
+        if (entry == exit) {
+            return new MazeSearchResult(new int[]{entry}, 1);
+        }
+
+        int cols = grid.numCols();
+        int entryCluster = clusterOf(entry);
+        int exitCluster = clusterOf(exit);
+        int[] entryNodes = clusterNodes[entryCluster];
+
+        /* Connect entry and exit to the nodes of their clusters. */
+        int expanded = local.bfs(entryCluster, entry);
+        int[] entryCost = nodeDistances(entryCluster);
+        int direct = entryCluster == exitCluster ? local.distance[local.index(entryCluster, exit)] : -1;
+        expanded += local.bfs(exitCluster, exit);
+        int[] exitCost = nodeDistances(exitCluster);
+
+        /* Number abstract nodes: cluster nodes first, then entry and exit. */
+        int[] offset = new int[clusterNodes.length + 1];
+        for (int k = 0; k < clusterNodes.length; k++) {
+            offset[k + 1] = offset[k] + clusterNodes[k].length;
+        }
+        int source = offset[clusterNodes.length];
+        int target = source + 1;
+        int[] nodeCell = new int[target + 1];
+        for (int k = 0; k < clusterNodes.length; k++) {
+            System.arraycopy(clusterNodes[k], 0, nodeCell, offset[k], clusterNodes[k].length);
+        }
+        nodeCell[source] = entry;
+        nodeCell[target] = exit;
+
+        int[] distance = new int[target + 1];
+        Arrays.fill(distance, Integer.MAX_VALUE);
+        int[] parent = new int[target + 1];
+        IntMinHeap open = new IntMinHeap(target + 1);
+        distance[source] = 0;
+        parent[source] = source;
+        open.insertOrUpdate(source, key(nodeCell, source, exit, 0));
+
+        while (!open.isEmpty()) {
+            int node = open.poll();
+            expanded++;
+            if (node == target) {
+                int[] abstractPath = abstractPath(parent, nodeCell, source, target);
+                LocalSearch searched = local;
+                long searchedVersion = grid.getVersion();
+                int searchedEpoch = epoch;
+                return new MazeSearchResult(distance[target] + 1,
+                        () -> refine(searched, searchedVersion, searchedEpoch, abstractPath), expanded);
+            }
+            if (node == source) {
+                for (int i = 0; i < entryNodes.length; i++) {
+                    if (entryCost[i] >= 0) {
+                        relax(distance, parent, open, nodeCell, node, offset[entryCluster] + i, entryCost[i], exit);
+                    }
+                }
+                if (direct >= 0) {
+                    relax(distance, parent, open, nodeCell, node, target, direct, exit);
+                }
+                continue;
+            }
+
+            /* Intra-cluster edges. */
+            int cell = nodeCell[node];
+            int k = clusterOf(cell);
+            int local = node - offset[k];
+            int count = clusterNodes[k].length;
+            for (int j = 0; j < count; j++) {
+                int cost = clusterDistances[k][local * count + j];
+                if (j != local && cost >= 0) {
+                    relax(distance, parent, open, nodeCell, node, offset[k] + j, cost, exit);
+                }
+            }
+            if (k == exitCluster && exitCost[local] >= 0) {
+                relax(distance, parent, open, nodeCell, node, target, exitCost[local], exit);
+            }
+
+            /* Edges across borders to adjacent nodes. */
+            int row = cell / cols;
+            int col = cell - row * cols;
+            if (row > 0) {
+                crossEdge(distance, parent, open, nodeCell, offset, node, cell - cols, k, exit);
+            }
+            if (row < grid.numRows() - 1) {
+                crossEdge(distance, parent, open, nodeCell, offset, node, cell + cols, k, exit);
+            }
+            if (col > 0) {
+                crossEdge(distance, parent, open, nodeCell, offset, node, cell - 1, k, exit);
+            }
+            if (col < cols - 1) {
+                crossEdge(distance, parent, open, nodeCell, offset, node, cell + 1, k, exit);
+            }
+        }
+        return new MazeSearchResult(null, expanded);
+    }
+
+    /**
+     * Mark cluster of changed cell for rebuild and drop refinements of earlier searches.
+     *
+     * @param grid wall grid that changed
+     * @param cell cell index
+     * @param wall true if cell now has a wall
+     */
+    public synchronized void wallChanged(MazeGrid grid, int cell, boolean wall) {
+        if (grid != this.grid || version < 0) {
+            return;
+        }
+        epoch++;
+        if (grid.getVersion() != version + 1) {
+            version = -1;       // missed a change, rebuild everything on next query
+            return;
+        }
+        version = grid.getVersion();
+        dirty[clusterOf(cell)] = true;
+        anyDirty = true;
+    }
+
+    /**
+     * Build whole abstraction of a grid.
+     *
+     * @param grid wall grid
+     */
+    private void build(MazeGrid grid) {
+        this.grid = grid;
+        this.version = grid.getVersion();
+        clusterRows = (grid.numRows() + clusterSize - 1) / clusterSize;
+        clusterCols = (grid.numCols() + clusterSize - 1) / clusterSize;
+        int clusters = clusterRows * clusterCols;
+        verticalBorders = new int[clusters][];
+        horizontalBorders = new int[clusters][];
+        clusterNodes = new int[clusters][];
+        clusterDistances = new int[clusters][];
+        dirty = new boolean[clusters];
+        anyDirty = false;
+        local = new LocalSearch(grid, clusterSize, clusterCols);
+        epoch++;
+
+        for (int k = 0; k < clusters; k++) {
+            buildBorders(k);
+        }
+        for (int k = 0; k < clusters; k++) {
+            buildCluster(k);
+        }
+    }
+
+    /**
+     * Rebuild borders of dirty clusters, then nodes and intra edges of them and their neighbors.
+     */
+    private void rebuildDirty() {
+        boolean[] touched = new boolean[dirty.length];
+        for (int k = 0; k < dirty.length; k++) {
+            if (!dirty[k]) {
+                continue;
+            }
+            int clusterRow = k / clusterCols;
+            int clusterCol = k % clusterCols;
+            buildBorders(k);
+            touched[k] = true;
+            if (clusterCol > 0) {
+                buildBorders(k - 1);
+                touched[k - 1] = true;
+            }
+            if (clusterRow > 0) {
+                buildBorders(k - clusterCols);
+                touched[k - clusterCols] = true;
+            }
+            if (clusterCol < clusterCols - 1) {
+                touched[k + 1] = true;
+            }
+            if (clusterRow < clusterRows - 1) {
+                touched[k + clusterCols] = true;
+            }
+            dirty[k] = false;
+        }
+        for (int k = 0; k < touched.length; k++) {
+            if (touched[k]) {
+                buildCluster(k);
+            }
+        }
+        anyDirty = false;
+    }
+
+    /**
+     * Find transitions on the right and bottom borders of a cluster.
+     *
+     * @param k cluster number
+     */
+    private void buildBorders(int k) {
+        int cols = grid.numCols();
+        int top = (k / clusterCols) * clusterSize;
+        int left = (k % clusterCols) * clusterSize;
+        int bottom = Math.min(top + clusterSize, grid.numRows()) - 1;
+        int right = Math.min(left + clusterSize, cols) - 1;
+
+        /* Right border: pairs (row, right) - (row, right + 1). */
+        int[] found = new int[clusterSize * 2];
+        int count = 0;
+        if (right < cols - 1) {
+            int runStart = -1;
+            for (int row = top; row <= bottom + 1; row++) {
+                boolean open = row <= bottom && !grid.hasWall(row, right) && !grid.hasWall(row, right + 1);
+                if (open && runStart < 0) {
+                    runStart = row;
+                } else if (!open && runStart >= 0) {
+                    count = addTransitions(found, count, runStart, row - 1, right, true);
+                    runStart = -1;
+                }
+            }
+        }
+        verticalBorders[k] = Arrays.copyOf(found, count);
+
+        /* Bottom border: pairs (bottom, col) - (bottom + 1, col). */
+        count = 0;
+        if (bottom < grid.numRows() - 1) {
+            int runStart = -1;
+            for (int col = left; col <= right + 1; col++) {
+                boolean open = col <= right && !grid.hasWall(bottom, col) && !grid.hasWall(bottom + 1, col);
+                if (open && runStart < 0) {
+                    runStart = col;
+                } else if (!open && runStart >= 0) {
+                    count = addTransitions(found, count, runStart, col - 1, bottom, false);
+                    runStart = -1;
+                }
+            }
+        }
+        horizontalBorders[k] = Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Add transitions of one entrance run.
+     *
+     * @param found    transitions found so far
+     * @param count    number found so far
+     * @param first    first row (or column) of run
+     * @param last     last row (or column) of run
+     * @param line     column (or row) of the border cells on the lower side
+     * @param vertical true for a vertical border, run goes along rows
+     * @return new count
+     */
+    private int addTransitions(int[] found, int count, int first, int last, int line, boolean vertical) {
+        int cols = grid.numCols();
+        if (last - first + 1 >= LONG_ENTRANCE) {
+            found[count++] = vertical ? first * cols + line : line * cols + first;
+            found[count++] = vertical ? last * cols + line : line * cols + last;
+        } else {
+            int middle = (first + last) / 2;
+            found[count++] = vertical ? middle * cols + line : line * cols + middle;
+        }
+        return count;
+    }
+
+    /**
+     * Collect nodes of a cluster from its four borders and compute its intra distances.
+     *
+     * @param k cluster number
+     */
+    private void buildCluster(int k) {
+        int cols = grid.numCols();
+        int clusterRow = k / clusterCols;
+        int clusterCol = k % clusterCols;
+        int[] nodes = new int[clusterSize * 8];
+        int count = 0;
+        for (int cell : verticalBorders[k]) {
+            nodes[count++] = cell;
+        }
+        for (int cell : horizontalBorders[k]) {
+            nodes[count++] = cell;
+        }
+        if (clusterCol > 0) {
+            for (int cell : verticalBorders[k - 1]) {
+                nodes[count++] = cell + 1;
+            }
+        }
+        if (clusterRow > 0) {
+            for (int cell : horizontalBorders[k - clusterCols]) {
+                nodes[count++] = cell + cols;
+            }
+        }
+        Arrays.sort(nodes, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || nodes[i] != nodes[unique - 1]) {
+                nodes[unique++] = nodes[i];
+            }
+        }
+        nodes = Arrays.copyOf(nodes, unique);
+        clusterNodes[k] = nodes;
+
+        int[] distances = new int[unique * unique];
+        for (int i = 0; i < unique; i++) {
+            local.bfs(k, nodes[i]);
+            for (int j = 0; j < unique; j++) {
+                distances[i * unique + j] = local.distance[local.index(k, nodes[j])];
+            }
+        }
+        clusterDistances[k] = distances;
+    }
+
+    /**
+     * Read distances of the nodes of a cluster from the last local BFS.
+     *
+     * @param k cluster number
+     * @return distance per node, -1 if not reached
+     */
+    private int[] nodeDistances(int k) {
+        int[] nodes = clusterNodes[k];
+        int[] result = new int[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            result[i] = local.distance[local.index(k, nodes[i])];
+        }
+        return result;
+    }
+
+    /**
+     * Relax abstract edge to a node of a neighbor cluster if that cell is a node.
+     *
+     * @param distance distances of abstract nodes
+     * @param parent   parents of abstract nodes
+     * @param open     open list
+     * @param nodeCell cell of every abstract node
+     * @param offset   first abstract node of every cluster
+     * @param node     abstract node being expanded
+     * @param cell     adjacent cell
+     * @param k        cluster of node
+     * @param exit     exit cell index
+     */
+    private void crossEdge(int[] distance, int[] parent, IntMinHeap open, int[] nodeCell, int[] offset,
+                           int node, int cell, int k, int exit) {
+        int other = clusterOf(cell);
+        if (other == k) {
+            return;
+        }
+        int index = Arrays.binarySearch(clusterNodes[other], cell);
+        if (index >= 0) {
+            relax(distance, parent, open, nodeCell, node, offset[other] + index, 1, exit);
+        }
+    }
+
+    /**
+     * Lower distance of an abstract node if going through node is shorter.
+     *
+     * @param distance distances of abstract nodes
+     * @param parent   parents of abstract nodes
+     * @param open     open list
+     * @param nodeCell cell of every abstract node
+     * @param node     abstract node being expanded
+     * @param next     abstract neighbor
+     * @param cost     edge cost
+     * @param exit     exit cell index
+     */
+    private void relax(int[] distance, int[] parent, IntMinHeap open, int[] nodeCell,
+                       int node, int next, int cost, int exit) {
+        int steps = distance[node] + cost;
+        if (steps < distance[next]) {
+            distance[next] = steps;
+            parent[next] = node;
+            open.insertOrUpdate(next, key(nodeCell, next, exit, steps));
+        }
+    }
+
+    /**
+     * Heap key of an abstract node, f in the high half and inverted g in the low half.
+     *
+     * @param nodeCell cell of every abstract node
+     * @param node     abstract node
+     * @param exit     exit cell index
+     * @param steps    g of node
+     * @return heap key
+     */
+    private long key(int[] nodeCell, int node, int exit, int steps) {
+        long f = (long) steps + MazeHeuristic.MANHATTAN.estimate(grid, nodeCell[node], exit);
+        return f << 32 | (0xFFFFFFFFL - steps);
+    }
+
+    /**
+     * Get cells of abstract path from entry to exit.
+     *
+     * @param parent   parents of abstract nodes
+     * @param nodeCell cell of every abstract node
+     * @param source   entry node
+     * @param target   exit node
+     * @return cells of abstract nodes on path, entry first
+     */
+    private static int[] abstractPath(int[] parent, int[] nodeCell, int source, int target) {
+        int length = 1;
+        for (int node = target; node != source; node = parent[node]) {
+            length++;
+        }
+        int[] cells = new int[length];
+        for (int node = target, i = length - 1; i >= 0; node = parent[node], i--) {
+            cells[i] = nodeCell[node];
+        }
+        return cells;
+    }
+
+    /**
+     * Expand abstract path into cells: adjacent cells are one step, others are joined by a BFS inside their
+     * cluster. The BFS runs on scratch of its own over the grid that was searched, so a search on another
+     * thread does not disturb it.
+     *
+     * @param searched        cluster-local BFS of the search, gives grid and cluster layout
+     * @param searchedVersion grid version at search time
+     * @param searchedEpoch   epoch at search time
+     * @param abstractPath    cells of abstract nodes, entry first
+     * @return cell indices from entry to exit
+     * @throws IllegalStateException walls changed since the search
+     */
+    private int[] refine(LocalSearch searched, long searchedVersion, int searchedEpoch, int[] abstractPath) {
+        if (epoch != searchedEpoch || searched.grid.getVersion() != searchedVersion) {
+            throw new IllegalStateException("Walls changed since the search, its path was dropped");
+        }
+        LocalSearch search = new LocalSearch(searched.grid, clusterSize, searched.clusterCols);
+        int cols = search.grid.numCols();
+        int[] path = new int[16];
+        int length = 0;
+        path[length++] = abstractPath[0];
+        for (int i = 1; i < abstractPath.length; i++) {
+            int from = abstractPath[i - 1];
+            int to = abstractPath[i];
+            if (from == to) {
+                continue;
+            }
+            int k = search.clusterOf(from);
+            if (search.clusterOf(to) != k) {
+                if (length == path.length) {
+                    path = Arrays.copyOf(path, length * 2);
+                }
+                path[length++] = to;        // edge across a border
+                continue;
+            }
+
+            /* Edge inside a cluster: walk local predecessors back from to. */
+            search.bfs(k, from);
+            int local = search.index(k, to);
+            int steps = search.distance[local];
+            if (length + steps > path.length) {
+                path = Arrays.copyOf(path, Math.max(path.length * 2, length + steps));
+            }
+            int top = (k / search.clusterCols) * clusterSize;
+            int left = (k % search.clusterCols) * clusterSize;
+            for (int j = length + steps - 1; j >= length; j--) {
+                path[j] = (top + local / clusterSize) * cols + left + local % clusterSize;
+                local = search.predecessor[local];
+            }
+            length += steps;
+        }
+        return Arrays.copyOf(path, length);
+    }
+
+    /**
+     * Get cluster number of a cell.
+     *
+     * @param cell cell index
+     * @return cluster number
+     */
+    private int clusterOf(int cell) {
+        return local.clusterOf(cell);
+    }
+
+    /**
+     * Breadth-first search confined to one cluster, with its own scratch arrays.
+     */
+    private static final class LocalSearch {
+
+        final MazeGrid grid;
+        final int clusterSize;
+        final int clusterCols;
+        final int[] distance;           // per local index, -1 if not reached
+        final int[] predecessor;        // per local index, valid if reached
+        final int[] queue;
+
+        LocalSearch(MazeGrid grid, int clusterSize, int clusterCols) {
+            this.grid = grid;
+            this.clusterSize = clusterSize;
+            this.clusterCols = clusterCols;
+            distance = new int[clusterSize * clusterSize];
+            predecessor = new int[clusterSize * clusterSize];
+            queue = new int[clusterSize * clusterSize];
+        }
+
+        /**
+         * Search from a cell inside one cluster, filling distance and predecessor.
+         *
+         * @param k      cluster number
+         * @param source free cell inside cluster
+         * @return number of cells expanded
+         */
+        int bfs(int k, int source) {
+            int cols = grid.numCols();
+            int top = (k / clusterCols) * clusterSize;
+            int left = (k % clusterCols) * clusterSize;
+            int height = Math.min(top + clusterSize, grid.numRows()) - top;
+            int width = Math.min(left + clusterSize, cols) - left;
+            Arrays.fill(distance, -1);
+
+            int start = (source / cols - top) * clusterSize + (source % cols - left);
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = start;
+            distance[start] = 0;
+            predecessor[start] = start;
+            while (head < tail) {
+                int current = queue[head++];
+                int row = current / clusterSize;
+                int col = current % clusterSize;
+                int next = distance[current] + 1;
+                if (row > 0) {
+                    tail = visit(current, current - clusterSize, top + row - 1, left + col, next, tail);
+                }
+                if (row < height - 1) {
+                    tail = visit(current, current + clusterSize, top + row + 1, left + col, next, tail);
+                }
+                if (col > 0) {
+                    tail = visit(current, current - 1, top + row, left + col - 1, next, tail);
+                }
+                if (col < width - 1) {
+                    tail = visit(current, current + 1, top + row, left + col + 1, next, tail);
+                }
+            }
+            return tail;
+        }
+
+        /**
+         * Reach one neighbor.
+         *
+         * @param current local index being expanded
+         * @param local   local index of neighbor
+         * @param row     grid row of neighbor
+         * @param col     grid column of neighbor
+         * @param steps   distance of neighbor through current
+         * @param tail    queue tail
+         * @return new queue tail
+         */
+        private int visit(int current, int local, int row, int col, int steps, int tail) {
+            if (distance[local] < 0 && !grid.hasWall(row, col)) {
+                distance[local] = steps;
+                predecessor[local] = current;
+                queue[tail++] = local;
+            }
+            return tail;
+        }
+
+        /**
+         * Get cluster number of a cell.
+         *
+         * @param cell cell index
+         * @return cluster number
+         */
+        int clusterOf(int cell) {
+            int cols = grid.numCols();
+            return (cell / cols / clusterSize) * clusterCols + (cell % cols) / clusterSize;
+        }
+
+        /**
+         * Get local index of a cell inside its cluster.
+         *
+         * @param k    cluster number
+         * @param cell cell index inside cluster k
+         * @return local index (row - top) * clusterSize + (col - left)
+         */
+        int index(int k, int cell) {
+            int cols = grid.numCols();
+            return (cell / cols - (k / clusterCols) * clusterSize) * clusterSize
+                    + (cell % cols - (k % clusterCols) * clusterSize);
+        }
+    }
+}
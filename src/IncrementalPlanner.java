@@ -0,0 +1,229 @@
+import java.util.Arrays;
+
+/**
+ * Lifelong Planning A* (LPA*), a solver that repairs its shortest path tree when walls change.
+ * <p>
+ * Every cell has g, its current distance from entry, and rhs, the distance one step look-ahead computes from
+ * its neighbors. Cells where the two differ are inconsistent and wait in an IntMinHeap keyed by
+ * (min(g, rhs) + Manhattan distance to exit, min(g, rhs)). A wall change only makes the changed cell and
+ * its neighbors inconsistent, so the next solve only processes the part of the tree that the change
+ * affects instead of searching from scratch.
+ * <p>
+ * The planner must receive wall changes as MazeChangeListener; Maze.setSolver registers it. State is kept for
+ * the last grid, entry and exit, a query with any of them different, or after a wall change that was not
+ * reported, starts over.
+ */
+
+public class IncrementalPlanner implements MazeSolver, MazeChangeListener {
+
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+
+    private MazeGrid grid;
+    private int start = -1;
+    private int goal = -1;
+    private long version;       // grid version the state is up to date with, -1 to start over
+    private int[] g;
+    private int[] rhs;
+    private IntMinHeap open;
+
+    /**
+     * Search shortest path from entry to exit, repairing the previous search when grid, entry and exit are
+     * the same as last time.
+     *
+     * @param grid  wall grid
+     * @param entry entry cell index
+     * @param exit  exit cell index
+     * @return search result, expanded count is the number of cells processed by this call
+     */
+    public MazeSearchResult solve(MazeGrid grid, int entry, int exit) {
+        if (grid != this.grid || entry != start || exit != goal || grid.getVersion() != version) {
+            initialize(grid, entry, exit);
+        }
+        int expanded = computeShortestPath();
+        if (g[goal] >= INFINITY) {
+            return new MazeSearchResult(null, expanded);
+        }
+        return new MazeSearchResult(extractPath(), expanded);
+    }
+
+    /**
+     * Mark changed cell and its neighbors for repair.
+     *
+     * @param grid wall grid that changed
+     * @param cell cell index
+     * @param wall true if cell now has a wall
+     */
+    public void wallChanged(MazeGrid grid, int cell, boolean wall) {
+        if (grid != this.grid || version < 0) {
+            return;
+        }
+        if (cell == start || cell == goal || grid.getVersion() != version + 1) {
+            version = -1;
+            return;
+        }
+        version = grid.getVersion();
+        int cols = grid.numCols();
+        int row = cell / cols;
+        int col = cell - row * cols;
+        updateVertex(cell);
+        if (row > 0) {
+            updateVertex(cell - cols);
+        }
+        if (row < grid.numRows() - 1) {
+            updateVertex(cell + cols);
+        }
+        if (col > 0) {
+            updateVertex(cell - 1);
+        }
+        if (col < cols - 1) {
+            updateVertex(cell + 1);
+        }
+    }
+
+    /**
+     * Reset state for a new grid or new entry and exit.
+     *
+     * @param grid  wall grid
+     * @param entry entry cell index
+     * @param exit  exit cell index
+     */
+    private void initialize(MazeGrid grid, int entry, int exit) {
+        if (g == null || g.length != grid.numCells()) {
+            g = new int[grid.numCells()];
+            rhs = new int[grid.numCells()];
+            open = new IntMinHeap(grid.numCells());
+        } else {
+            open.clear();
+        }
+        Arrays.fill(g, INFINITY);
+        Arrays.fill(rhs, INFINITY);
+        this.grid = grid;
+        this.start = entry;
+        this.goal = exit;
+        this.version = grid.getVersion();
+        rhs[start] = 0;
+        open.insertOrUpdate(start, key(start));
+    }
+
+    /**
+     * Process inconsistent cells until exit is consistent and no cell in the heap can improve it.
+     *
+     * @return number of cells processed
+     */
+    private int computeShortestPath() {
+        int cols = grid.numCols();
+        int rows = grid.numRows();
+        int expanded = 0;
+        while (!open.isEmpty() && (open.peekPriority() < key(goal) || rhs[goal] != g[goal])) {
+            int current = open.poll();
+            expanded++;
+            if (g[current] > rhs[current]) {
+                g[current] = rhs[current];      // overconsistent: settle
+            } else {
+                g[current] = INFINITY;          // underconsistent: invalidate and look again
+                updateVertex(current);
+            }
+            int row = current / cols;
+            int col = current - row * cols;
+            if (row > 0) {
+                updateVertex(current - cols);
+            }
+            if (row < rows - 1) {
+                updateVertex(current + cols);
+            }
+            if (col > 0) {
+                updateVertex(current - 1);
+            }
+            if (col < cols - 1) {
+                updateVertex(current + 1);
+            }
+        }
+        return expanded;
+    }
+
+    /**
+     * Recompute rhs of a cell from its free neighbors and put it in the heap if it is inconsistent.
+     *
+     * @param cell cell index
+     */
+    private void updateVertex(int cell) {
+        if (cell != start) {
+            boolean wall = grid.hasWall(cell / grid.numCols(), cell % grid.numCols());
+            rhs[cell] = wall ? INFINITY : Math.min(INFINITY, bestNeighbor(cell) + 1);
+        }
+        if (g[cell] != rhs[cell]) {
+            open.insertOrUpdate(cell, key(cell));
+        } else {
+            open.remove(cell);
+        }
+    }
+
+    /**
+     * Get smallest g among free neighbors of a cell.
+     *
+     * @param cell cell index
+     * @return smallest g, INFINITY if no neighbor is reached
+     */
+    private int bestNeighbor(int cell) {
+        int cols = grid.numCols();
+        int row = cell / cols;
+        int col = cell - row * cols;
+        int best = INFINITY;
+        if (row > 0 && g[cell - cols] < best && !grid.hasWall(row - 1, col)) {
+            best = g[cell - cols];
+        }
+        if (row < grid.numRows() - 1 && g[cell + cols] < best && !grid.hasWall(row + 1, col)) {
+            best = g[cell + cols];
+        }
+        if (col > 0 && g[cell - 1] < best && !grid.hasWall(row, col - 1)) {
+            best = g[cell - 1];
+        }
+        if (col < cols - 1 && g[cell + 1] < best && !grid.hasWall(row, col + 1)) {
+            best = g[cell + 1];
+        }
+        return best;
+    }
+
+    /**
+     * Walk back from exit to entry, each time to the free neighbor with smallest g.
+     *
+     * @return cell indices from entry to exit
+     */
+    private int[] extractPath() {
+        int cols = grid.numCols();
+        int[] path = new int[g[goal] + 1];
+        int cell = goal;
+        for (int i = path.length - 1; i > 0; i--) {
+            path[i] = cell;
+            int row = cell / cols;
+            int col = cell - row * cols;
+            int next = -1;
+            if (row > 0 && !grid.hasWall(row - 1, col)) {
+                next = cell - cols;
+            }
+            if (row < grid.numRows() - 1 && !grid.hasWall(row + 1, col) && (next < 0 || g[cell + cols] < g[next])) {
+                next = cell + cols;
+            }
+            if (col > 0 && !grid.hasWall(row, col - 1) && (next < 0 || g[cell - 1] < g[next])) {
+                next = cell - 1;
+            }
+            if (col < cols - 1 && !grid.hasWall(row, col + 1) && (next < 0 || g[cell + 1] < g[next])) {
+                next = cell + 1;
+            }
+            cell = next;
+        }
+        path[0] = cell;
+        return path;
+    }
+
+    /**
+     * Heap key of a cell, (min(g, rhs) + h, min(g, rhs)) packed into one long.
+     *
+     * @param cell cell index
+     * @return heap key
+     */
+    private long key(int cell) {
+        long distance = Math.min(g[cell], rhs[cell]);
+        return (distance + MazeHeuristic.MANHATTAN.estimate(grid, cell, goal)) << 32 | distance;
+    }
+}
@@ -0,0 +1,211 @@
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of int elements in [0, capacity) with long priorities.
+ * The heap slot of every element is kept in an index array, so decreasing the priority of an element
+ * already in the heap is O(log n) without searching, and no element object is ever allocated.
+ */
+
+public class IntMinHeap {
+
+    private final int[] slotOf;         // heap slot of each element, -1 if not in heap
+    private int[] elements = new int[16];
+    private long[] priorities = new long[16];
+    private int size;
+
+    /**
+     * Create empty heap.
+     *
+     * @param capacity elements must be smaller than capacity
+     */
+    public IntMinHeap(int capacity) {
+        slotOf = new int[capacity];
+        Arrays.fill(slotOf, -1);
+    }
+
+    /**
+     * Check if heap is empty.
+     *
+     * @return true if heap is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Get number of elements in heap.
+     *
+     * @return heap size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check if element is in heap.
+     *
+     * @param element element
+     * @return true if element is in heap
+     */
+    public boolean contains(int element) {
+        return slotOf[element] >= 0;
+    }
+
+    /**
+     * Get priority of element in heap.
+     *
+     * @param element element in heap
+     * @return priority
+     */
+    public long priorityOf(int element) {
+        return priorities[slotOf[element]];
+    }
+
+    /**
+     * Insert element, or change its priority if it is already in heap.
+     *
+     * @param element  element
+     * @param priority new priority
+     */
+    public void insertOrUpdate(int element, long priority) {
+        int slot = slotOf[element];
+        if (slot < 0) {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, size * 2);
+                priorities = Arrays.copyOf(priorities, size * 2);
+            }
+            slot = size++;
+            place(element, priority, slot);
+            siftUp(slot);
+        } else if (priority < priorities[slot]) {
+            priorities[slot] = priority;
+            siftUp(slot);
+        } else {
+            priorities[slot] = priority;
+            siftDown(slot);
+        }
+    }
+
+    /**
+     * Get element at a heap slot, for looking at all elements in no particular order.
+     *
+     * @param slot slot from 0 to size() - 1
+     * @return element
+     */
+    public int elementAt(int slot) {
+        return elements[slot];
+    }
+
+    /**
+     * Get element with smallest priority without removing it.
+     *
+     * @return element, heap must not be empty
+     */
+    public int peek() {
+        return elements[0];
+    }
+
+    /**
+     * Get smallest priority.
+     *
+     * @return priority of peek(), heap must not be empty
+     */
+    public long peekPriority() {
+        return priorities[0];
+    }
+
+    /**
+     * Remove and return element with smallest priority.
+     *
+     * @return element, heap must not be empty
+     */
+    public int poll() {
+        int top = elements[0];
+        remove(top);
+        return top;
+    }
+
+    /**
+     * Remove element if it is in heap.
+     *
+     * @param element element
+     */
+    public void remove(int element) {
+        int slot = slotOf[element];
+        if (slot < 0) {
+            return;
+        }
+        slotOf[element] = -1;
+        size--;
+        if (slot != size) {
+            place(elements[size], priorities[size], slot);
+            siftDown(slot);
+            siftUp(slot);
+        }
+    }
+
+    /**
+     * Remove all elements.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            slotOf[elements[i]] = -1;
+        }
+        size = 0;
+    }
+
+    /**
+     * Move element up while it is smaller than its parent.
+     *
+     * @param slot heap slot
+     */
+    private void siftUp(int slot) {
+        int element = elements[slot];
+        long priority = priorities[slot];
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (priorities[parent] <= priority) {
+                break;
+            }
+            place(elements[parent], priorities[parent], slot);
+            slot = parent;
+        }
+        place(element, priority, slot);
+    }
+
+    /**
+     * Move element down while a child is smaller.
+     *
+     * @param slot heap slot
+     */
+    private void siftDown(int slot) {
+        int element = elements[slot];
+        long priority = priorities[slot];
+        int half = size >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            if (child + 1 < size && priorities[child + 1] < priorities[child]) {
+                child++;
+            }
+            if (priority <= priorities[child]) {
+                break;
+            }
+            place(elements[child], priorities[child], slot);
+            slot = child;
+        }
+        place(element, priority, slot);
+    }
+
+    /**
+     * Put element into slot and record its slot.
+     *
+     * @param element  element
+     * @param priority priority of element
+     * @param slot     heap slot
+     */
+    private void place(int element, long priority, int slot) {
+        elements[slot] = element;
+        priorities[slot] = priority;
+        slotOf[element] = slot;
+    }
+}
@@ -0,0 +1,213 @@
+/**
+ * Jump Point Search for 4-connected grids with uniform step cost, returns a shortest path.
+ * <p>
+ * Instead of pushing every cell, the search jumps along straight lines and only stops at jump points:
+ * the exit, cells with a forced neighbor (an open cell beside the line whose cell one step back is blocked),
+ * and, on vertical jumps, cells from which a horizontal jump finds a jump point. Open rooms are crossed
+ * without touching the open list, so only a few nodes are expanded there. Jump points are searched with A*
+ * and Manhattan distance, then the straight segments between them are expanded back into a cell by cell path.
+ * Distances, parents and the open list come from the thread's SearchContext, a jump point's entries only count
+ * if its stamp is the current generation, so queries neither allocate nor clear per-cell arrays.
+ */
+
+public class JumpPointSolver implements MazeSolver {
+
+    /**
+     * Search shortest path from entry to exit.
+     *
+     * @param grid  wall grid
+     * @param entry entry cell index
+     * @param exit  exit cell index
+     * @return search result, expanded count is the number of jump points expanded
+     */
+    public MazeSearchResult solve(MazeGrid grid, int entry, int exit) {
+        try (SearchContext context = SearchContext.acquire(grid.numCells())) {
+            int cols = grid.numCols();
+            int expanded = 0;
+
+            /* distance (steps from entry) and parent count only if stamp is this generation. */
+            int[] distance = context.distance();
+            int[] parent = context.predecessor;
+            IntMinHeap open = context.open();
+
+            context.stamp[entry] = context.generation;
+            distance[entry] = 0;
+            parent[entry] = entry;
+            open.insertOrUpdate(entry, key(grid, entry, exit, 0));
+
+            while (!open.isEmpty()) {
+                int current = open.poll();
+                expanded++;
+                if (current == exit) {
+                    return new MazeSearchResult(expandPath(parent, entry, exit, cols), expanded);
+                }
+                int row = current / cols;
+                int col = current - row * cols;
+
+                /* Travel direction into current, none at entry. */
+                int from = parent[current];
+                int rowStep = Integer.signum(row - from / cols);
+                int colStep = Integer.signum(col - from % cols);
+
+                /* Moving horizontally: go on, or turn up or down. Moving vertically: go on, or turn left or right. */
+                if (colStep == 0) {
+                    jumpFrom(grid, context, distance, open, current, row, col, 0, -1, exit);
+                    jumpFrom(grid, context, distance, open, current, row, col, 0, 1, exit);
+                }
+                if (colStep != 0 || rowStep == 0) {
+                    jumpFrom(grid, context, distance, open, current, row, col, -1, 0, exit);
+                    jumpFrom(grid, context, distance, open, current, row, col, 1, 0, exit);
+                }
+                if (colStep != 0) {
+                    jumpFrom(grid, context, distance, open, current, row, col, 0, colStep, exit);
+                } else if (rowStep != 0) {
+                    jumpFrom(grid, context, distance, open, current, row, col, rowStep, 0, exit);
+                }
+            }
+            return new MazeSearchResult(null, expanded);
+        }
+    }
+
+    /**
+     * Jump from a node in one direction and add the jump point found to open list.
+     *
+     * @param grid     wall grid
+     * @param context  scratch of this search, its predecessors are the previous jump point of every jump point
+     * @param distance steps from entry of every jump point, from context
+     * @param open     open list, from context
+     * @param current  node being expanded
+     * @param row      row of node
+     * @param col      column of node
+     * @param rowStep  -1, 0 or 1
+     * @param colStep  -1, 0 or 1
+     * @param exit     exit cell index
+     */
+    private static void jumpFrom(MazeGrid grid, SearchContext context, int[] distance, IntMinHeap open,
+                                 int current, int row, int col, int rowStep, int colStep, int exit) {
+        int jumpPoint = rowStep == 0
+                ? jumpHorizontal(grid, row, col + colStep, colStep, exit)
+                : jumpVertical(grid, row + rowStep, col, rowStep, exit);
+        if (jumpPoint < 0) {
+            return;
+        }
+        int cols = grid.numCols();
+        int steps = distance[current] + Math.abs(jumpPoint / cols - row) + Math.abs(jumpPoint % cols - col);
+        if (context.stamp[jumpPoint] != context.generation || steps < distance[jumpPoint]) {
+            context.stamp[jumpPoint] = context.generation;
+            distance[jumpPoint] = steps;
+            context.predecessor[jumpPoint] = current;
+            open.insertOrUpdate(jumpPoint, key(grid, jumpPoint, exit, steps));
+        }
+    }
+
+    /**
+     * Walk horizontally from a cell until a jump point or a wall.
+     *
+     * @param grid    wall grid
+     * @param row     row of first cell
+     * @param col     column of first cell
+     * @param colStep -1 or 1
+     * @param exit    exit cell index
+     * @return jump point cell index, or -1 if a wall or the border is hit first
+     */
+    private static int jumpHorizontal(MazeGrid grid, int row, int col, int colStep, int exit) {
+        int cols = grid.numCols();
+        for (; isFree(grid, row, col); col += colStep) {
+            int cell = row * cols + col;
+            if (cell == exit) {
+                return cell;
+            }
+            if ((isFree(grid, row - 1, col) && !isFree(grid, row - 1, col - colStep))
+                    || (isFree(grid, row + 1, col) && !isFree(grid, row + 1, col - colStep))) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Walk vertically from a cell until a jump point or a wall.
+     * A cell is also a jump point when a horizontal jump from it finds one.
+     *
+     * @param grid    wall grid
+     * @param row     row of first cell
+     * @param col     column of first cell
+     * @param rowStep -1 or 1
+     * @param exit    exit cell index
+     * @return jump point cell index, or -1 if a wall or the border is hit first
+     */
+    private static int jumpVertical(MazeGrid grid, int row, int col, int rowStep, int exit) {
+        int cols = grid.numCols();
+        for (; isFree(grid, row, col); row += rowStep) {
+            int cell = row * cols + col;
+            if (cell == exit) {
+                return cell;
+            }
+            if ((isFree(grid, row, col - 1) && !isFree(grid, row - rowStep, col - 1))
+                    || (isFree(grid, row, col + 1) && !isFree(grid, row - rowStep, col + 1))) {
+                return cell;
+            }
+            if (jumpHorizontal(grid, row, col + 1, 1, exit) >= 0 || jumpHorizontal(grid, row, col - 1, -1, exit) >= 0) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Check if location is inside grid and has no wall.
+     *
+     * @param grid wall grid
+     * @param row  row number
+     * @param col  column number
+     * @return true if cell can be stepped on
+     */
+    private static boolean isFree(MazeGrid grid, int row, int col) {
+        return row >= 0 && row < grid.numRows() && col >= 0 && col < grid.numCols() && !grid.hasWall(row, col);
+    }
+
+    /**
+     * Turn chain of jump points into a cell by cell path.
+     *
+     * @param parent previous jump point of every jump point
+     * @param entry  entry cell index
+     * @param exit   exit cell index
+     * @param cols   number of columns
+     * @return cell indices from entry to exit
+     */
+    private static int[] expandPath(int[] parent, int entry, int exit, int cols) {
+        int length = 1;
+        for (int cell = exit; cell != entry; cell = parent[cell]) {
+            int from = parent[cell];
+            length += Math.abs(cell / cols - from / cols) + Math.abs(cell % cols - from % cols);
+        }
+        int[] path = new int[length];
+        int i = length - 1;
+        path[i] = exit;
+        for (int cell = exit; cell != entry; cell = parent[cell]) {
+            int from = parent[cell];
+            int step = Math.abs(cell - from) < cols ? Integer.signum(from - cell) : Integer.signum(from - cell) * cols;
+            for (int walk = cell + step; ; walk += step) {
+                path[--i] = walk;
+                if (walk == from) {
+                    break;
+                }
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Heap key of a jump point, f in the high half and inverted g in the low half.
+     *
+     * @param grid  wall grid
+     * @param cell  cell index
+     * @param exit  exit cell index
+     * @param steps g of cell
+     * @return heap key
+     */
+    private static long key(MazeGrid grid, int cell, int exit, int steps) {
+        long f = (long) steps + MazeHeuristic.MANHATTAN.estimate(grid, cell, exit);
+        return f << 32 | (0xFFFFFFFFL - steps);
+    }
+}
@@ -0,0 +1,705 @@
+import java.util.Arrays;
+
+/**
+ * Maze reduced to the junctions that can lie on a path between other cells, for queries on corridor mazes.
+ * <p>
+ * Built in linear time. Dead-end filling first removes every free cell with at most one free neighbor left,
+ * repeatedly, so whole dead-end branches and tree-shaped components disappear; each filled cell links to the
+ * neighbor it hung on, so the filled cells form trees whose links lead back to the remaining core. Core cells
+ * with other than two core neighbors become junctions, and the chains of two-neighbor cells between them
+ * become corridors: weighted edges of the junction graph. Every corridor cell keeps its corridor id and
+ * offset, and a ring without any junction gets one of its cells as junction.
+ * <p>
+ * A query climbs the links from entry and exit to their core cells, runs Dijkstra over junctions only, and
+ * builds the cell path (trees, corridors and junctions) when MazeSearchResult.getPath is first called. If
+ * entry and exit hang on the same core cell their path is the tree path through their lowest common link,
+ * which no detour through the core can beat. Paths are shortest, or cheapest on weighted grids: the cost of a
+ * corridor is the weight of its cells plus the junction it leads to.
+ */
+
+public class JunctionGraph {
+
+    private static final int FILLED = -1;                   // corridor value of filled cells and walls
+    private static final int UNASSIGNED = Integer.MIN_VALUE; // corridor value of core cells during build
+
+    private final MazeGrid grid;
+    private final long version;                     // grid version the graph is built for
+    private final long buildNanos;
+
+    /* Per cell. */
+    private int[] corridor;         // corridor id, FILLED, or -2 - junction id for junction cells
+    private int[] link;             // offset in corridor, or cell toward the core (itself for a tree root) if filled
+    private int filledCount;
+
+    private int[] junctionCells = new int[64];
+    private int junctionCount;
+    private int[] adjacencyStart;   // per junction and one more: start of its corridors in adjacentCorridors
+    private int[] adjacentCorridors;
+
+    private int[] corridorStart = new int[65];      // per corridor and one more: start of its cells
+    private int[] corridorCells = new int[64];      // cells of all corridors, each corridor by offset
+    private int[] corridorEnds = new int[128];      // per corridor: junction before offset 0, junction after last
+    private int[] corridorCost = new int[64];       // per corridor: weight of its cells
+    private int corridorCount;
+
+    /**
+     * Build graph of a grid.
+     *
+     * @param grid wall grid
+     * @throws IllegalArgumentException path costs of grid may not fit in an int
+     */
+    private JunctionGraph(MazeGrid grid) {
+        if ((long) grid.getMaxWeight() * grid.numCells() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Path costs of " + grid.numCells() + " cells of weight up to "
+                    + grid.getMaxWeight() + " overflow");
+        }
+        long startTime = System.nanoTime();
+        this.grid = grid;
+        this.version = grid.getVersion();
+        byte[] degree = fillDeadEnds();
+        for (int cell = 0; cell < corridor.length; cell++) {
+            if (corridor[cell] == UNASSIGNED && degree[cell] != 2) {
+                addJunction(cell);
+            }
+        }
+        for (int junction = 0; junction < junctionCount; junction++) {
+            traceCorridors(junction);
+        }
+        for (int cell = 0; cell < corridor.length; cell++) {
+            if (corridor[cell] == UNASSIGNED) {
+                /* Ring of two-neighbor cells only */
+                addJunction(cell);
+                traceCorridors(junctionCount - 1);
+            }
+        }
+        linkJunctions();
+        this.buildNanos = System.nanoTime() - startTime;
+    }
+
+    /**
+     * Fill dead ends and reduce a grid to its junction graph.
+     *
+     * @param grid wall grid, must not change while the graph is used
+     * @return junction graph of grid
+     * @throws IllegalArgumentException path costs of grid may not fit in an int
+     */
+    public static JunctionGraph build(MazeGrid grid) {
+        return new JunctionGraph(grid);
+    }
+
+    /**
+     * Get grid the graph was built for.
+     *
+     * @return wall grid
+     */
+    public MazeGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Get grid version the graph was built for, it is stale once MazeGrid.getVersion differs.
+     *
+     * @return grid version at build time
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Get number of free cells removed by dead-end filling.
+     *
+     * @return filled cells
+     */
+    public int getFilledCount() {
+        return filledCount;
+    }
+
+    /**
+     * Get number of nodes of the graph.
+     *
+     * @return junctions
+     */
+    public int getJunctionCount() {
+        return junctionCount;
+    }
+
+    /**
+     * Get number of edges of the graph, corridors of no cells between adjacent junctions included.
+     *
+     * @return corridors
+     */
+    public int getCorridorCount() {
+        return corridorCount;
+    }
+
+    /**
+     * Get time taken to build the graph.
+     *
+     * @return build time in nanoseconds
+     */
+    public long getBuildNanos() {
+        return buildNanos;
+    }
+
+    /**
+     * Get memory used by the graph, per-cell corridor and link arrays included.
+     *
+     * @return size in bytes
+     */
+    public long byteSize() {
+        return (long) Integer.BYTES * (corridor.length + link.length + junctionCells.length + adjacencyStart.length
+                + adjacentCorridors.length + corridorStart.length + corridorCells.length + corridorEnds.length
+                + corridorCost.length);
+    }
+
+    /**
+     * Report graph size in one line.
+     *
+     * @return statistics string
+     */
+    public String toString() {
+        return String.format("JunctionGraph[cells=%d,filled=%d,junctions=%d,corridors=%d,bytes=%d,buildMs=%.3f]",
+                corridor.length, filledCount, junctionCount, corridorCount, byteSize(), buildNanos / 1e6);
+    }
+
+    /**
+     * Search cheapest path between two free cells.
+     *
+     * @param entry entry cell index
+     * @param exit  exit cell index
+     * @return search result with path cost and deferred path, expanded count is the junctions settled or, for a
+     * path inside one tree, the cells climbed
+     */
+    public MazeSearchResult findPath(int entry, int exit) {
+        int entryDepth = depthOf(entry);
+        int exitDepth = depthOf(exit);
+        int source = climb(entry, entryDepth);
+        int target = climb(exit, exitDepth);
+        if (source == target) {
+            return treePath(entry, entryDepth, exit, exitDepth);
+        }
+        if (corridor[source] == FILLED || corridor[target] == FILLED) {
+            /* Different tree components */
+            return new MazeSearchResult(null, entryDepth + exitDepth);
+        }
+        int climbCost = climbCost(entry, source) + climbCost(exit, target) - grid.getWeight(target)
+                + grid.getWeight(exit);
+
+        try (SearchContext context = SearchContext.acquire(junctionCount)) {
+
+            /* distance[j] is the cost from source to junction j, predecessor[j] the junction it was reached from
+             * (itself if reached from source directly) and queue[j] the corridor taken, or -1 - side from source. */
+            int generation = context.generation;
+            int[] stamp = context.stamp;
+            int[] predecessor = context.predecessor;
+            int[] distance = context.distance();
+            int[] via = context.queue();
+            IntMinHeap open = context.open();
+
+            int sourceCorridor = corridor[source];
+            int targetCorridor = corridor[target];
+            long best = Long.MAX_VALUE;
+            int bestJunction = -1;          // -1 for the direct way along one corridor
+            if (sourceCorridor <= -2) {
+                seed(context, -2 - sourceCorridor, 0, 0);
+            } else {
+                int offset = link[source];
+                int last = corridorLength(sourceCorridor) - 1;
+                int before = corridorEnds[2 * sourceCorridor];
+                int after = corridorEnds[2 * sourceCorridor + 1];
+                seed(context, before, corridorSum(sourceCorridor, 0, offset - 1) + weightOf(before), 0);
+                seed(context, after, corridorSum(sourceCorridor, offset + 1, last) + weightOf(after), 1);
+                if (targetCorridor == sourceCorridor) {
+                    int targetOffset = link[target];
+                    best = targetOffset > offset ? corridorSum(sourceCorridor, offset + 1, targetOffset)
+                            : corridorSum(sourceCorridor, targetOffset, offset - 1);
+                }
+            }
+
+            /* Cost from each end junction of target's corridor on to target. */
+            long tailBefore = Long.MAX_VALUE;
+            long tailAfter = Long.MAX_VALUE;
+            int targetBefore = -2 - targetCorridor;
+            int targetAfter = -1;
+            if (targetCorridor <= -2) {
+                tailBefore = 0;
+            } else {
+                targetBefore = corridorEnds[2 * targetCorridor];
+                targetAfter = corridorEnds[2 * targetCorridor + 1];
+                tailBefore = corridorSum(targetCorridor, 0, link[target]);
+                tailAfter = corridorSum(targetCorridor, link[target], corridorLength(targetCorridor) - 1);
+            }
+
+            int expanded = 0;
+            int bestSide = 0;               // end of target's corridor the best path comes through
+            while (!open.isEmpty() && open.peekPriority() < best) {
+                int junction = open.poll();
+                expanded++;
+                int cost = distance[junction];
+                if (junction == targetBefore && cost + tailBefore < best) {
+                    best = cost + tailBefore;
+                    bestJunction = junction;
+                    bestSide = 0;
+                }
+                if (junction == targetAfter && cost + tailAfter < best) {
+                    best = cost + tailAfter;
+                    bestJunction = junction;
+                    bestSide = 1;
+                }
+                for (int i = adjacencyStart[junction]; i < adjacencyStart[junction + 1]; i++) {
+                    int edge = adjacentCorridors[i];
+                    int next = corridorEnds[2 * edge] == junction ? corridorEnds[2 * edge + 1] : corridorEnds[2 * edge];
+                    int nextCost = cost + corridorCost[edge] + weightOf(next);
+                    if (stamp[next] != generation || nextCost < distance[next]) {
+                        stamp[next] = generation;
+                        distance[next] = nextCost;
+                        predecessor[next] = junction;
+                        via[next] = edge;
+                        open.insertOrUpdate(next, nextCost);
+                    }
+                }
+            }
+            if (best == Long.MAX_VALUE) {
+                return new MazeSearchResult(null, expanded);
+            }
+
+            /* Junctions and corridors of the best route, copied out of the pooled context. */
+            int hops = 0;
+            if (bestJunction >= 0) {
+                for (int junction = bestJunction; predecessor[junction] != junction; junction = predecessor[junction]) {
+                    hops++;
+                }
+            }
+            int[] route = new int[hops + 1];
+            int[] edges = new int[hops];
+            int sourceSide = 0;
+            if (bestJunction >= 0) {
+                int junction = bestJunction;
+                for (int i = hops; i > 0; i--) {
+                    route[i] = junction;
+                    edges[i - 1] = via[junction];
+                    junction = predecessor[junction];
+                }
+                route[0] = junction;
+                sourceSide = -1 - via[junction];
+            }
+            return routeResult(entry, exit, source, target, bestJunction < 0 ? null : route, edges, sourceSide,
+                    bestSide, entryDepth + exitDepth, (int) best + climbCost, expanded);
+        }
+    }
+
+    /**
+     * Build result of a route through the core, with the cell path deferred.
+     *
+     * @param entry      entry cell
+     * @param exit       exit cell
+     * @param source     core cell of entry
+     * @param target     core cell of exit
+     * @param route      junctions from first to last, or null to go along the corridor of source and target
+     * @param edges      corridors between consecutive junctions of route
+     * @param sourceSide end of source's corridor leading to the first junction, 0 before offset 0, 1 after last
+     * @param targetSide end of target's corridor the last junction is
+     * @param climbed    cells between entry and exit and their core cells
+     * @param cost       path cost
+     * @param expanded   junctions settled
+     * @return search result
+     */
+    private MazeSearchResult routeResult(int entry, int exit, int source, int target, int[] route, int[] edges,
+                                         int sourceSide, int targetSide, int climbed, int cost, int expanded) {
+        int steps = climbed;
+        if (route == null) {
+            steps += Math.abs(link[target] - link[source]);
+        } else {
+            if (corridor[source] >= 0) {
+                steps += sourceSide == 0 ? link[source] + 1 : corridorLength(corridor[source]) - link[source];
+            }
+            for (int edge : edges) {
+                steps += corridorLength(edge) + 1;
+            }
+            if (corridor[target] >= 0) {
+                steps += targetSide == 0 ? link[target] + 1 : corridorLength(corridor[target]) - link[target];
+            }
+        }
+        int length = steps + 1;
+
+        return new MazeSearchResult(length, () -> {
+            int[] path = new int[length];
+            int count = 0;
+            for (int cell = entry; cell != source; cell = link[cell]) {
+                path[count++] = cell;
+            }
+            if (route == null) {
+                count = appendCorridor(path, count, corridor[source], link[source], link[target]);
+            } else {
+                path[count++] = source;
+                int sourceCorridor = corridor[source];
+                if (sourceCorridor >= 0) {
+                    count = sourceSide == 0
+                            ? appendCorridor(path, count, sourceCorridor, link[source] - 1, 0)
+                            : appendCorridor(path, count, sourceCorridor, link[source] + 1,
+                            corridorLength(sourceCorridor) - 1);
+                    path[count++] = junctionCells[route[0]];
+                }
+                for (int i = 0; i < edges.length; i++) {
+                    int edge = edges[i];
+                    count = corridorEnds[2 * edge] == route[i]
+                            ? appendCorridor(path, count, edge, 0, corridorLength(edge) - 1)
+                            : appendCorridor(path, count, edge, corridorLength(edge) - 1, 0);
+                    path[count++] = junctionCells[route[i + 1]];
+                }
+                int targetCorridor = corridor[target];
+                if (targetCorridor >= 0) {
+                    count = targetSide == 0
+                            ? appendCorridor(path, count, targetCorridor, 0, link[target])
+                            : appendCorridor(path, count, targetCorridor, corridorLength(targetCorridor) - 1,
+                            link[target]);
+                }
+            }
+            for (int cell = exit, i = length - 1; cell != target; cell = link[cell], i--) {
+                path[i] = cell;
+            }
+            return path;
+        }, expanded).withCost(cost);
+    }
+
+    /**
+     * Build path between two cells hanging on the same core cell, or in the same tree component.
+     *
+     * @param entry      entry cell
+     * @param entryDepth links from entry to its core cell or root
+     * @param exit       exit cell
+     * @param exitDepth  links from exit to its core cell or root
+     * @return search result with path through the lowest common link
+     */
+    private MazeSearchResult treePath(int entry, int entryDepth, int exit, int exitDepth) {
+        int up = entry;
+        int down = exit;
+        int upSteps = 0;
+        int downSteps = 0;
+        for (int depth = entryDepth; depth > exitDepth; depth--, upSteps++) {
+            up = link[up];
+        }
+        for (int depth = exitDepth; depth > entryDepth; depth--, downSteps++) {
+            down = link[down];
+        }
+        while (up != down) {
+            up = link[up];
+            down = link[down];
+            upSteps++;
+            downSteps++;
+        }
+        int[] path = new int[upSteps + downSteps + 1];
+        int cost = 0;
+        int cell = entry;
+        for (int i = 0; i <= upSteps; i++, cell = link[cell]) {
+            path[i] = cell;
+            cost += i > 0 ? grid.getWeight(cell) : 0;
+        }
+        cell = exit;
+        for (int i = path.length - 1; i > upSteps; i--, cell = link[cell]) {
+            path[i] = cell;
+            cost += grid.getWeight(cell);
+        }
+        return new MazeSearchResult(path, entryDepth + exitDepth).withCost(cost);
+    }
+
+    /**
+     * Remove dead ends, setting corridor, link and filledCount.
+     *
+     * @return number of core neighbors of every core cell
+     */
+    private byte[] fillDeadEnds() {
+        int rows = grid.numRows();
+        int cols = grid.numCols();
+        int[] offsets = grid.neighborOffsets();
+        corridor = new int[grid.numCells()];
+        link = new int[grid.numCells()];
+        byte[] degree = new byte[grid.numCells()];
+        int[] queue = new int[grid.numCells()];
+        int head = 0;
+        int tail = 0;
+
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int cell = row * cols + col;
+                if (grid.hasWall(row, col)) {
+                    corridor[cell] = FILLED;
+                    continue;
+                }
+                corridor[cell] = UNASSIGNED;
+                degree[cell] = (byte) Integer.bitCount(grid.freeNeighbors(row, col));
+                if (degree[cell] <= 1) {
+                    queue[tail++] = cell;
+                }
+            }
+        }
+
+        /* A queued cell has at most one unfilled neighbor, which may become a dead end once it is filled. */
+        while (head != tail) {
+            int current = queue[head++];
+            corridor[current] = FILLED;
+            link[current] = current;
+            filledCount++;
+            int row = current / cols;
+            for (int free = grid.freeNeighbors(row, current - row * cols); free != 0; free &= free - 1) {
+                int next = current + offsets[Integer.numberOfTrailingZeros(free)];
+                if (corridor[next] != FILLED) {
+                    link[current] = next;
+                    if (--degree[next] == 1) {
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+        return degree;
+    }
+
+    /**
+     * Make a core cell a junction.
+     *
+     * @param cell core cell
+     */
+    private void addJunction(int cell) {
+        if (junctionCount == junctionCells.length) {
+            junctionCells = Arrays.copyOf(junctionCells, junctionCount * 2);
+        }
+        corridor[cell] = -2 - junctionCount;
+        junctionCells[junctionCount++] = cell;
+    }
+
+    /**
+     * Walk every corridor leaving a junction that is not traced yet, numbering its cells.
+     *
+     * @param junction junction id
+     */
+    private void traceCorridors(int junction) {
+        int cols = grid.numCols();
+        int[] offsets = grid.neighborOffsets();
+        int start = junctionCells[junction];
+        int row = start / cols;
+        for (int free = grid.freeNeighbors(row, start - row * cols); free != 0; free &= free - 1) {
+            int current = start + offsets[Integer.numberOfTrailingZeros(free)];
+            if (corridor[current] != UNASSIGNED && corridor[current] <= -2) {
+                /* Adjacent junctions, joined by a corridor of no cells once */
+                if (-2 - corridor[current] > junction) {
+                    beginCorridor(junction);
+                    endCorridor(-2 - corridor[current], 0);
+                }
+                continue;
+            }
+            if (corridor[current] != UNASSIGNED) {
+                continue;       // filled, or traced from its other end
+            }
+
+            int id = beginCorridor(junction);
+            int previous = start;
+            int offset = 0;
+            int cost = 0;
+            while (corridor[current] == UNASSIGNED) {
+                corridor[current] = id;
+                link[current] = offset++;
+                int position = corridorStart[id] + link[current];
+                if (position == corridorCells.length) {
+                    corridorCells = Arrays.copyOf(corridorCells, position * 2);
+                }
+                corridorCells[position] = current;
+                cost += grid.getWeight(current);
+
+                /* Step on to the core neighbor that is not the one we came from. */
+                int currentRow = current / cols;
+                int next = -1;
+                for (int around = grid.freeNeighbors(currentRow, current - currentRow * cols); around != 0;
+                     around &= around - 1) {
+                    int neighbor = current + offsets[Integer.numberOfTrailingZeros(around)];
+                    if (neighbor != previous && corridor[neighbor] != FILLED) {
+                        next = neighbor;
+                        break;
+                    }
+                }
+                previous = current;
+                current = next;
+            }
+            corridorStart[id + 1] = corridorStart[id] + offset;
+            endCorridor(-2 - corridor[current], cost);
+        }
+    }
+
+    /**
+     * Start a corridor leaving a junction, its cells are added from corridorStart[id] on.
+     *
+     * @param junction junction before offset 0
+     * @return corridor id
+     */
+    private int beginCorridor(int junction) {
+        if (corridorCount == corridorCost.length) {
+            corridorStart = Arrays.copyOf(corridorStart, corridorCount * 2 + 1);
+            corridorEnds = Arrays.copyOf(corridorEnds, corridorCount * 4);
+            corridorCost = Arrays.copyOf(corridorCost, corridorCount * 2);
+        }
+        corridorStart[corridorCount + 1] = corridorStart[corridorCount];
+        corridorEnds[2 * corridorCount] = junction;
+        return corridorCount;
+    }
+
+    /**
+     * Finish the corridor begun last.
+     *
+     * @param junction junction after last offset
+     * @param cost     weight of corridor cells
+     */
+    private void endCorridor(int junction, int cost) {
+        corridorEnds[2 * corridorCount + 1] = junction;
+        corridorCost[corridorCount] = cost;
+        corridorCount++;
+    }
+
+    /**
+     * List corridors by junction, leaving out corridors that return to the junction they leave.
+     */
+    private void linkJunctions() {
+        adjacencyStart = new int[junctionCount + 1];
+        for (int edge = 0; edge < corridorCount; edge++) {
+            if (corridorEnds[2 * edge] != corridorEnds[2 * edge + 1]) {
+                adjacencyStart[corridorEnds[2 * edge] + 1]++;
+                adjacencyStart[corridorEnds[2 * edge + 1] + 1]++;
+            }
+        }
+        for (int junction = 0; junction < junctionCount; junction++) {
+            adjacencyStart[junction + 1] += adjacencyStart[junction];
+        }
+        adjacentCorridors = new int[adjacencyStart[junctionCount]];
+        int[] fill = Arrays.copyOf(adjacencyStart, junctionCount);
+        for (int edge = 0; edge < corridorCount; edge++) {
+            if (corridorEnds[2 * edge] != corridorEnds[2 * edge + 1]) {
+                adjacentCorridors[fill[corridorEnds[2 * edge]]++] = edge;
+                adjacentCorridors[fill[corridorEnds[2 * edge + 1]]++] = edge;
+            }
+        }
+        junctionCells = Arrays.copyOf(junctionCells, junctionCount);
+        corridorCells = Arrays.copyOf(corridorCells, corridorStart[corridorCount]);
+    }
+
+    /**
+     * Offer a junction reached from source without passing other junctions.
+     *
+     * @param context search context
+     * @param junction junction id
+     * @param cost     cost from source
+     * @param side     end of source's corridor the junction is at
+     */
+    private static void seed(SearchContext context, int junction, int cost, int side) {
+        if (context.stamp[junction] != context.generation || cost < context.distance()[junction]) {
+            context.stamp[junction] = context.generation;
+            context.distance()[junction] = cost;
+            context.predecessor[junction] = junction;
+            context.queue()[junction] = -1 - side;
+            context.open().insertOrUpdate(junction, cost);
+        }
+    }
+
+    /**
+     * Count links from a cell to its core cell, or to the root of its tree component.
+     *
+     * @param cell free cell
+     * @return links climbed, 0 for a core cell
+     */
+    private int depthOf(int cell) {
+        int depth = 0;
+        for (; corridor[cell] == FILLED && link[cell] != cell; cell = link[cell]) {
+            depth++;
+        }
+        return depth;
+    }
+
+    /**
+     * Follow links from a cell.
+     *
+     * @param cell  free cell
+     * @param depth links to follow
+     * @return cell reached
+     */
+    private int climb(int cell, int depth) {
+        for (int i = 0; i < depth; i++) {
+            cell = link[cell];
+        }
+        return cell;
+    }
+
+    /**
+     * Get cost of climbing from a cell to its core cell.
+     *
+     * @param cell free cell
+     * @param core core cell reached by its links
+     * @return weights of the cells after cell, core included
+     */
+    private int climbCost(int cell, int core) {
+        int cost = 0;
+        for (; cell != core; cell = link[cell]) {
+            cost += grid.getWeight(link[cell]);
+        }
+        return cost;
+    }
+
+    /**
+     * Get weight of a junction cell.
+     *
+     * @param junction junction id
+     * @return weight of its cell
+     */
+    private int weightOf(int junction) {
+        return grid.getWeight(junctionCells[junction]);
+    }
+
+    /**
+     * Get number of cells of a corridor.
+     *
+     * @param id corridor id
+     * @return cells, 0 for a corridor between adjacent junctions
+     */
+    private int corridorLength(int id) {
+        return corridorStart[id + 1] - corridorStart[id];
+    }
+
+    /**
+     * Add up weights of consecutive corridor cells.
+     *
+     * @param id   corridor id
+     * @param from first offset
+     * @param to   last offset, less than from for none
+     * @return weight of cells from offset from to offset to
+     */
+    private int corridorSum(int id, int from, int to) {
+        if (!grid.isWeighted()) {
+            return Math.max(0, to - from + 1);
+        }
+        int sum = 0;
+        for (int offset = from; offset <= to; offset++) {
+            sum += grid.getWeight(corridorCells[corridorStart[id] + offset]);
+        }
+        return sum;
+    }
+
+    /**
+     * Copy corridor cells into a path in either direction.
+     *
+     * @param path  path being built
+     * @param count cells of path so far
+     * @param id    corridor id
+     * @param from  first offset, out of range for none
+     * @param to    last offset
+     * @return cells of path afterwards
+     */
+    private int appendCorridor(int[] path, int count, int id, int from, int to) {
+        int length = corridorLength(id);
+        if (from < 0 || from >= length) {
+            return count;
+        }
+        int step = to >= from ? 1 : -1;
+        for (int offset = from; ; offset += step) {
+            path[count++] = corridorCells[corridorStart[id] + offset];
+            if (offset == to) {
+                return count;
+            }
+        }
+    }
+}
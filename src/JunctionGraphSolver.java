@@ -0,0 +1,54 @@
+/**
+ * Solver for many queries on a corridor maze: the first query of a grid builds its JunctionGraph, later ones
+ * only search the junctions. The graph is kept for the last grid searched and rebuilt when its walls or weights
+ * change, so the solver keeps no state a query depends on and can be shared by concurrent queries of a frozen
+ * grid. Paths are shortest, or cheapest on weighted grids.
+ * <p>
+ * Open grids hardly shrink, nearly every free cell is a junction there, so grids with more than one junction per
+ * DENSE_CELLS cells are searched cell by cell instead, by DijkstraSolver if weighted and BfsSolver if not.
+ */
+
+public class JunctionGraphSolver implements MazeSolver {
+
+    public static final int DENSE_CELLS = 8;
+
+    private final MazeSolver weightedSolver = new DijkstraSolver();
+    private final MazeSolver unweightedSolver = new BfsSolver();
+    private volatile JunctionGraph graph;
+
+    /**
+     * Get junction graph of a grid, building it if the one kept is for another grid or version.
+     *
+     * @param grid wall grid
+     * @return junction graph of grid
+     */
+    public JunctionGraph getGraph(MazeGrid grid) {
+        JunctionGraph current = graph;
+        if (current == null || current.getGrid() != grid || current.getVersion() != grid.getVersion()) {
+            synchronized (this) {
+                current = graph;
+                if (current == null || current.getGrid() != grid || current.getVersion() != grid.getVersion()) {
+                    current = JunctionGraph.build(grid);
+                    graph = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Search path from entry to exit on the junction graph of grid.
+     *
+     * @param grid  wall grid
+     * @param entry entry cell index
+     * @param exit  exit cell index
+     * @return search result with path cost, expanded count is junctions settled
+     */
+    public MazeSearchResult solve(MazeGrid grid, int entry, int exit) {
+        JunctionGraph current = getGraph(grid);
+        if (current.getJunctionCount() > grid.numCells() / DENSE_CELLS) {
+            return (grid.isWeighted() ? weightedSolver : unweightedSolver).solve(grid, entry, exit);
+        }
+        return current.findPath(entry, exit);
+    }
+}
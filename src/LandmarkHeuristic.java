@@ -0,0 +1,558 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * ALT heuristic (A*, landmarks, triangle inequality) for mazes queried many times between arbitrary cells.
+ * <p>
+ * Preprocessing picks landmarks by farthest-point selection, the first one farthest from a seed cell and each
+ * next one farthest from all picked so far, and stores the steps from every landmark to every cell. Since
+ * steps(L, goal) <= steps(L, cell) + steps(cell, goal), |steps(L, goal) - steps(L, cell)| never overestimates
+ * the steps from cell to goal; the estimate is the largest of these bounds and Manhattan distance, which keeps
+ * it consistent. Walls that force long detours show up in landmark distances, so A* expands far fewer cells
+ * than with Manhattan distance alone.
+ * <p>
+ * A landmark table takes one unsigned short per cell when its distances are below 0xFFFF, otherwise one int.
+ * Tables are kept in buffers, so they can be written to a landmark file and mapped back in place. All values
+ * are little endian. Layout:
+ * <pre>
+ *  0  magic "MAZL"
+ *  4  int version (2)
+ *  8  int rows, int cols
+ * 16  int landmark count
+ * 20  long fingerprint of the grid's walls and weights
+ * 28  zero padding up to 64
+ * 64  per landmark: int cell, int bytes per distance (2 or 4)
+ *     per landmark: rows * cols distances, 0xFFFF or -1 for walls and cells the landmark can not reach
+ * </pre>
+ * Usage: LandmarkHeuristic [-k landmarks] [-q queries] mazeFile [landmarkFile] builds landmarks from the maze
+ * entry, prints preprocessing time and memory, writes landmarkFile if given, and compares cells expanded by
+ * A* with Manhattan distance and with landmarks over random queries:
+ * <pre>
+ * LandmarkHeuristic[landmarks=8,buildMs=1931.453,bytesPerLandmark=16016004,bytes=128128032]
+ * queries=50 manhattanExpanded=50482792 altExpanded=10107455 reduction=5.0 manhattanMs=7653.799 altMs=3835.080
+ * </pre>
+ */
+
+public class LandmarkHeuristic implements MazeHeuristic {
+
+    public static final int VERSION = 2;
+    public static final int DEFAULT_LANDMARKS = 8;
+
+    private static final int MAGIC = 'M' | 'A' << 8 | 'Z' << 16 | 'L' << 24;
+    private static final int HEADER_SIZE = 64;
+    private static final int NARROW_UNREACHABLE = 0xFFFF;
+    private static final long FINGERPRINT_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private static final String USAGE = "Usage: LandmarkHeuristic [-k landmarks] [-q queries] mazeFile [landmarkFile]";
+
+    private final MazeGrid grid;
+    private final long version;             // grid version the distances are computed for
+    private final int[] landmarks;
+    private final ShortBuffer[] narrow;     // per landmark: unsigned distances, or null if the table is wide
+    private final IntBuffer[] wide;         // per landmark: int distances, or null if the table is narrow
+    private final long buildNanos;
+
+    /**
+     * Create heuristic on distance tables.
+     *
+     * @param grid       grid the distances belong to
+     * @param landmarks  landmark cells
+     * @param narrow     short tables, null where wide is used
+     * @param wide       int tables, null where narrow is used
+     * @param buildNanos preprocessing time, 0 if read from a file
+     */
+    private LandmarkHeuristic(MazeGrid grid, int[] landmarks, ShortBuffer[] narrow, IntBuffer[] wide,
+                              long buildNanos) {
+        this.grid = grid;
+        this.version = grid.getVersion();
+        this.landmarks = landmarks;
+        this.narrow = narrow;
+        this.wide = wide;
+        this.buildNanos = buildNanos;
+    }
+
+    /**
+     * Main function of landmark preprocessing.
+     *
+     * @param args options followed by maze file and optional landmark file
+     */
+    public static void main(String[] args) {
+        int count = DEFAULT_LANDMARKS;
+        int queries = 100;
+        int first = 0;
+        try {
+            while (first + 1 < args.length && args[first].startsWith("-")) {
+                int value = Integer.parseInt(args[first + 1]);
+                if (args[first].equals("-k")) {
+                    count = value;
+                } else if (args[first].equals("-q")) {
+                    queries = value;
+                } else {
+                    break;
+                }
+                first += 2;
+            }
+        } catch (NumberFormatException exc) {
+            System.out.println("ERROR: " + exc.getMessage());
+            return;
+        }
+        if (args.length < first + 1 || args.length > first + 2 || count < 1 || queries < 0) {
+            System.out.println(USAGE);
+            return;
+        }
+
+        Path file = Paths.get(args[first]);
+        try (Maze maze = MazeLoader.load(file)) {
+            MazeGrid grid = maze.getGrid();
+            int seed = firstFreeCell(grid, maze.getEntryLoc());
+            if (seed < 0) {
+                System.out.println("ERROR: Maze has no free cell");
+                return;
+            }
+            LandmarkHeuristic heuristic = build(grid, count, seed);
+            System.out.println(heuristic);
+            if (args.length == first + 2) {
+                heuristic.write(Paths.get(args[first + 1]));
+            }
+            if (queries > 0) {
+                System.out.println(compare(grid, heuristic, queries));
+            }
+        } catch (NoSuchFileException exc) {
+            System.out.println("ERROR: File not found: " + exc.getFile());
+        } catch (IOException exc) {
+            System.out.println("ERROR: " + file + ": " + exc.getMessage());
+        }
+    }
+
+    /**
+     * Pick landmarks by farthest-point selection and compute their distance tables.
+     * Landmarks all lie in the component of seed; fewer are picked if the component has fewer cells.
+     *
+     * @param grid  wall grid, must not change while the heuristic is used
+     * @param count number of landmarks, at least 1
+     * @param seed  free cell whose component the landmarks cover
+     * @return landmark heuristic of grid
+     * @throws IllegalArgumentException count is less than 1 or seed is a wall
+     */
+    public static LandmarkHeuristic build(MazeGrid grid, int count, int seed) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Invalid landmark count: " + count);
+        }
+        if (grid.hasWall(seed / grid.numCols(), seed % grid.numCols())) {
+            throw new IllegalArgumentException("Landmark seed is a wall: " + seed);
+        }
+        long startTime = System.nanoTime();
+        int[] landmarks = new int[count];
+        ShortBuffer[] narrow = new ShortBuffer[count];
+        IntBuffer[] wide = new IntBuffer[count];
+
+        /* nearest[i] is the steps from cell i to its closest landmark so far, -1 outside seed's component. */
+        int[] nearest = new int[grid.numCells()];
+        DistanceField field = DistanceField.compute(grid, seed);
+        for (int cell = 0; cell < nearest.length; cell++) {
+            nearest[cell] = field.distanceOf(cell);
+        }
+        int picked = 0;
+        while (picked < count) {
+            int landmark = farthest(nearest);
+            if (picked > 0 && nearest[landmark] == 0) {
+                break;          // every cell of the component is a landmark already
+            }
+            field = DistanceField.compute(grid, landmark);
+            int maxDistance = 0;
+            for (int cell = 0; cell < nearest.length; cell++) {
+                int distance = field.distanceOf(cell);
+                maxDistance = Math.max(maxDistance, distance);
+                if (picked == 0 || distance >= 0 && distance < nearest[cell]) {
+                    nearest[cell] = distance;
+                }
+            }
+            if (maxDistance < NARROW_UNREACHABLE) {
+                narrow[picked] = ShortBuffer.allocate(nearest.length);
+                for (int cell = 0; cell < nearest.length; cell++) {
+                    narrow[picked].put(cell, (short) field.distanceOf(cell));
+                }
+            } else {
+                wide[picked] = IntBuffer.allocate(nearest.length);
+                for (int cell = 0; cell < nearest.length; cell++) {
+                    wide[picked].put(cell, field.distanceOf(cell));
+                }
+            }
+            landmarks[picked++] = landmark;
+        }
+        return new LandmarkHeuristic(grid, Arrays.copyOf(landmarks, picked),
+                Arrays.copyOf(narrow, picked), Arrays.copyOf(wide, picked),
+                System.nanoTime() - startTime);
+    }
+
+    /**
+     * Map a landmark file written by write, the distances are used in place. The file is checked against grid by
+     * size and by a fingerprint of walls and weights, so landmarks of another maze of the same size, whose bounds
+     * could overestimate, are rejected instead of making A* return longer paths.
+     *
+     * @param file landmark file path
+     * @param grid grid the landmarks were computed on
+     * @return heuristic backed by the file
+     * @throws IOException read error, or MazeFormatException if header is invalid or does not fit grid
+     */
+    public static LandmarkHeuristic read(Path file, MazeGrid grid) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                // keep reading until header is complete or end of file
+            }
+            if (buffer.hasRemaining()) {
+                throw new MazeFormatException("Landmark header is truncated", buffer.position());
+            }
+            IntBuffer header = buffer.flip().asIntBuffer();
+            if (header.get(0) != MAGIC) {
+                throw new MazeFormatException("Not a landmark file", 0);
+            }
+            if (header.get(1) != VERSION) {
+                throw new MazeFormatException("Unsupported landmark version " + header.get(1), 4);
+            }
+            if (header.get(2) != grid.numRows() || header.get(3) != grid.numCols()) {
+                throw new MazeFormatException("Landmarks of a " + header.get(2) + " x " + header.get(3)
+                        + " maze do not fit " + grid.numRows() + " x " + grid.numCols(), 8);
+            }
+            long fingerprint = buffer.getLong(20);
+            if (fingerprint != fingerprint(grid)) {
+                throw new MazeFormatException("Landmarks were computed for a maze with other walls or weights", 20);
+            }
+            int count = header.get(4);
+            if (count < 1 || count > (channel.size() - HEADER_SIZE) / (2 * Integer.BYTES)) {
+                throw new MazeFormatException("Invalid landmark count " + count, 16);
+            }
+
+            IntBuffer entries = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, (long) count * 8)
+                    .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            int[] landmarks = new int[count];
+            ShortBuffer[] narrow = new ShortBuffer[count];
+            IntBuffer[] wide = new IntBuffer[count];
+            long position = HEADER_SIZE + (long) count * 8;
+            for (int i = 0; i < count; i++) {
+                landmarks[i] = entries.get(2 * i);
+                int width = entries.get(2 * i + 1);
+                long tableBytes = (long) grid.numCells() * width;
+                if (width != Short.BYTES && width != Integer.BYTES || landmarks[i] < 0
+                        || landmarks[i] >= grid.numCells()
+                        || grid.hasWall(landmarks[i] / grid.numCols(), landmarks[i] % grid.numCols())) {
+                    throw new MazeFormatException("Invalid landmark " + i, HEADER_SIZE + 8L * i);
+                }
+                if (tableBytes > Integer.MAX_VALUE) {
+                    throw new IOException("Landmark table of " + grid.numCells() + " cells is too large to map");
+                }
+                if (position + tableBytes > channel.size()) {
+                    throw new MazeFormatException("Landmark file is truncated", channel.size());
+                }
+                ByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, position, tableBytes)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                if (width == Short.BYTES) {
+                    narrow[i] = table.asShortBuffer();
+                } else {
+                    wide[i] = table.asIntBuffer();
+                }
+                position += tableBytes;
+            }
+            return new LandmarkHeuristic(grid, landmarks, narrow, wide, 0);
+        }
+    }
+
+    /**
+     * Write landmarks and their distance tables in the layout described above.
+     *
+     * @param file output path
+     * @throws IOException write error
+     */
+    public void write(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(grid.numRows()).putInt(grid.numCols())
+                    .putInt(landmarks.length).putLong(fingerprint(grid));
+            buffer.position(HEADER_SIZE);
+            for (int i = 0; i < landmarks.length; i++) {
+                buffer.putInt(landmarks[i]).putInt(narrow[i] != null ? Short.BYTES : Integer.BYTES);
+                if (buffer.remaining() < 2 * Integer.BYTES) {
+                    flush(buffer, channel);
+                }
+            }
+            for (int i = 0; i < landmarks.length; i++) {
+                for (int cell = 0; cell < grid.numCells(); cell++) {
+                    if (buffer.remaining() < Integer.BYTES) {
+                        flush(buffer, channel);
+                    }
+                    if (narrow[i] != null) {
+                        buffer.putShort(narrow[i].get(cell));
+                    } else {
+                        buffer.putInt(wide[i].get(cell));
+                    }
+                }
+            }
+            flush(buffer, channel);
+        }
+    }
+
+    /**
+     * Hash walls and weights of a grid, so a landmark file can be matched to the grid it was computed on.
+     *
+     * @param grid wall grid
+     * @return 64-bit fingerprint
+     */
+    static long fingerprint(MazeGrid grid) {
+        long hash = mix(grid.numRows() * FINGERPRINT_MULTIPLIER ^ grid.numCols());
+        for (int row = 0; row < grid.numRows(); row++) {
+            for (int word = 0; word < grid.wordsPerRow(); word++) {
+                hash = mix(hash ^ grid.wallWord(row, word));
+            }
+        }
+        if (grid.isWeighted()) {
+            /* Weights fit in 4 bits, 16 of them per word */
+            long packed = 0;
+            for (int cell = 0; cell < grid.numCells(); cell++) {
+                packed = packed << 4 | grid.getWeight(cell);
+                if ((cell & 15) == 15) {
+                    hash = mix(hash ^ packed);
+                    packed = 0;
+                }
+            }
+            hash = mix(hash ^ packed ^ 1);
+        }
+        return hash;
+    }
+
+    /**
+     * Scramble the bits of a running hash after a word was folded in.
+     *
+     * @param hash running hash
+     * @return scrambled hash
+     */
+    private static long mix(long hash) {
+        hash *= FINGERPRINT_MULTIPLIER;
+        return hash ^ hash >>> 31;
+    }
+
+    /**
+     * Estimate steps from cell to goal by the landmark bounds and Manhattan distance, whichever is larger.
+     *
+     * @param grid wall grid, the one the landmarks were computed on
+     * @param cell cell index
+     * @param goal goal cell index
+     * @return lower bound of steps
+     */
+    public int estimate(MazeGrid grid, int cell, int goal) {
+        int bound = MANHATTAN.estimate(grid, cell, goal);
+        for (int i = 0; i < landmarks.length; i++) {
+            int fromCell = distanceOf(i, cell);
+            int fromGoal = distanceOf(i, goal);
+            if (fromCell >= 0 && fromGoal >= 0) {
+                bound = Math.max(bound, Math.abs(fromGoal - fromCell));
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * Get steps from a landmark to a cell.
+     *
+     * @param landmark landmark number, from 0 to getLandmarkCount() - 1
+     * @param cell     cell index
+     * @return steps, or -1 if cell is a wall or can not be reached from the landmark
+     */
+    public int distanceOf(int landmark, int cell) {
+        if (narrow[landmark] != null) {
+            int distance = narrow[landmark].get(cell) & 0xFFFF;
+            return distance == NARROW_UNREACHABLE ? -1 : distance;
+        }
+        return wide[landmark].get(cell);
+    }
+
+    /**
+     * Get grid the landmarks were computed on.
+     *
+     * @return wall grid
+     */
+    public MazeGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Get grid version the landmarks were computed or mapped for, they are stale once MazeGrid.getVersion
+     * differs.
+     *
+     * @return grid version at build time
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Get number of landmarks.
+     *
+     * @return landmarks
+     */
+    public int getLandmarkCount() {
+        return landmarks.length;
+    }
+
+    /**
+     * Get landmark cells in the order they were picked.
+     *
+     * @return new array of cell indices
+     */
+    public int[] getLandmarks() {
+        return landmarks.clone();
+    }
+
+    /**
+     * Get time taken to pick landmarks and compute their tables.
+     *
+     * @return preprocessing time in nanoseconds, 0 if read from a file
+     */
+    public long getBuildNanos() {
+        return buildNanos;
+    }
+
+    /**
+     * Get memory used by distance tables.
+     *
+     * @return size in bytes
+     */
+    public long byteSize() {
+        long bytes = 0;
+        for (int i = 0; i < landmarks.length; i++) {
+            bytes += narrow[i] != null ? (long) narrow[i].capacity() * Short.BYTES
+                    : (long) wide[i].capacity() * Integer.BYTES;
+        }
+        return bytes;
+    }
+
+    /**
+     * Report landmark preprocessing in one line.
+     *
+     * @return statistics string
+     */
+    public String toString() {
+        return String.format("LandmarkHeuristic[landmarks=%d,buildMs=%.3f,bytesPerLandmark=%d,bytes=%d]",
+                landmarks.length, buildNanos / 1e6, byteSize() / landmarks.length, byteSize());
+    }
+
+    /**
+     * Run random queries with A* on Manhattan distance and on landmarks and summarize cells expanded.
+     * Query i goes between two free cells drawn by a generator seeded with i, as in MazeBatchSolver.
+     *
+     * @param grid      wall grid
+     * @param heuristic landmarks of grid
+     * @param queries   number of queries
+     * @return summary line
+     * @throws IllegalStateException the two searches disagree on a path length
+     */
+    public static String compare(MazeGrid grid, LandmarkHeuristic heuristic, int queries) {
+        MazeSolver manhattan = new AStarSolver(MANHATTAN);
+        MazeSolver alt = new AStarSolver(heuristic);
+        long manhattanExpanded = 0;
+        long altExpanded = 0;
+        long manhattanNanos = 0;
+        long altNanos = 0;
+        for (int i = 0; i < queries; i++) {
+            SplittableRandom random = new SplittableRandom(i);
+            int from = randomFreeCell(grid, random);
+            int to = randomFreeCell(grid, random);
+            long startTime = System.nanoTime();
+            MazeSearchResult expected = manhattan.solve(grid, from, to);
+            long midTime = System.nanoTime();
+            MazeSearchResult result = alt.solve(grid, from, to);
+            altNanos += System.nanoTime() - midTime;
+            manhattanNanos += midTime - startTime;
+            if (expected.getPathLength() != result.getPathLength()) {
+                throw new IllegalStateException("Path length " + result.getPathLength() + " instead of "
+                        + expected.getPathLength() + " from " + from + " to " + to);
+            }
+            manhattanExpanded += expected.getExpandedCount();
+            altExpanded += result.getExpandedCount();
+        }
+        return String.format("queries=%d manhattanExpanded=%d altExpanded=%d reduction=%.1f manhattanMs=%.3f "
+                        + "altMs=%.3f", queries, manhattanExpanded, altExpanded,
+                altExpanded == 0 ? 1.0 : (double) manhattanExpanded / altExpanded, manhattanNanos / 1e6,
+                altNanos / 1e6);
+    }
+
+    /**
+     * Find cell with the largest distance to the landmarks picked so far, lowest index first.
+     *
+     * @param nearest steps to closest landmark, -1 for cells outside the component
+     * @return cell index
+     */
+    private static int farthest(int[] nearest) {
+        int best = 0;
+        for (int cell = 1; cell < nearest.length; cell++) {
+            if (nearest[cell] > nearest[best]) {
+                best = cell;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Get a location's cell if it is free, otherwise the first free cell of the grid.
+     *
+     * @param grid wall grid
+     * @param loc  preferred location
+     * @return free cell index, -1 if the grid has none
+     */
+    private static int firstFreeCell(MazeGrid grid, MazeCoord loc) {
+        if (loc.getRow() >= 0 && loc.getRow() < grid.numRows() && loc.getCol() >= 0 && loc.getCol() < grid.numCols()
+                && !grid.hasWall(loc.getRow(), loc.getCol())) {
+            return loc.getRow() * grid.numCols() + loc.getCol();
+        }
+        for (int cell = 0; cell < grid.numCells(); cell++) {
+            if (!grid.hasWall(cell / grid.numCols(), cell % grid.numCols())) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Draw a free cell, trying random cells a bounded number of times.
+     *
+     * @param grid   wall grid
+     * @param random random source
+     * @return free cell index, or a random wall cell if none was hit
+     */
+    private static int randomFreeCell(MazeGrid grid, SplittableRandom random) {
+        int cell = 0;
+        for (int attempt = 0; attempt < 64; attempt++) {
+            cell = random.nextInt(grid.numCells());
+            if (!grid.hasWall(cell / grid.numCols(), cell % grid.numCols())) {
+                break;
+            }
+        }
+        return cell;
+    }
+
+    /**
+     * Write out buffered bytes and clear buffer.
+     *
+     * @param buffer  buffer in write mode
+     * @param channel output file
+     * @throws IOException write error
+     */
+    private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * A* solver on the ALT heuristic for many queries on one maze: the first query of a grid picks landmarks from
+ * its entry cell and computes their LandmarkHeuristic, later ones reuse it. The landmarks are kept for the last
+ * grid searched and recomputed when its walls change, so concurrent queries of a frozen grid can share the
+ * solver. Queries outside the landmarks' component still get Manhattan distance, so paths are always shortest.
+ */
+
+public class LandmarkSolver implements MazeSolver {
+
+    private final int landmarkCount;
+    private volatile LandmarkHeuristic heuristic;
+
+    /**
+     * Create solver picking DEFAULT_LANDMARKS landmarks.
+     */
+    public LandmarkSolver() {
+        this(LandmarkHeuristic.DEFAULT_LANDMARKS);
+    }
+
+    /**
+     * Create solver picking a given number of landmarks.
+     *
+     * @param landmarkCount landmarks per grid, at least 1
+     * @throws IllegalArgumentException landmarkCount is less than 1
+     */
+    public LandmarkSolver(int landmarkCount) {
+        if (landmarkCount < 1) {
+            throw new IllegalArgumentException("Invalid landmark count: " + landmarkCount);
+        }
+        this.landmarkCount = landmarkCount;
+    }
+
+    /**
+     * Create solver on landmarks built or mapped before, used while their grid is unchanged.
+     *
+     * @param heuristic landmarks, for example from LandmarkHeuristic.read
+     */
+    public LandmarkSolver(LandmarkHeuristic heuristic) {
+        this.landmarkCount = heuristic.getLandmarkCount();
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * Get landmarks of a grid, picking them from seed if the ones kept are for another grid or version.
+     *
+     * @param grid wall grid
+     * @param seed free cell whose component new landmarks cover
+     * @return landmark heuristic of grid
+     */
+    public LandmarkHeuristic getHeuristic(MazeGrid grid, int seed) {
+        LandmarkHeuristic current = heuristic;
+        if (current == null || current.getGrid() != grid || current.getVersion() != grid.getVersion()) {
+            synchronized (this) {
+                current = heuristic;
+                if (current == null || current.getGrid() != grid || current.getVersion() != grid.getVersion()) {
+                    current = LandmarkHeuristic.build(grid, landmarkCount, seed);
+                    heuristic = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Search shortest path from entry to exit.
+     *
+     * @param grid  wall grid
+     * @param entry entry cell index
+     * @param exit  exit cell index
+     * @return search result
+     */
+    public MazeSearchResult solve(MazeGrid grid, int entry, int exit) {
+        return solve(grid, entry, exit, null);
+    }
+
+    /**
+     * Search shortest path from entry to exit, reporting progress like AStarSolver.
+     *
+     * @param grid    wall grid
+     * @param entry   entry cell index
+     * @param exit    exit cell index
+     * @param monitor progress receiver, or null
+     * @return search result, without path if search was cancelled
+     */
+    public MazeSearchResult solve(MazeGrid grid, int entry, int exit, SearchMonitor monitor) {
+        int cols = grid.numCols();
+        MazeHeuristic current = grid.hasWall(entry / cols, entry % cols)
+                ? MazeHeuristic.MANHATTAN : getHeuristic(grid, entry);   // walls can not seed landmarks
+        return new AStarSolver(current).solve(grid, entry, exit, monitor);
+    }
+}
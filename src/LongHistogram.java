@@ -0,0 +1,137 @@
+/**
+ * Histogram of non-negative long values with bounded relative error, for search metrics.
+ * <p>
+ * Values below 2^SUB_BITS get a bucket each. Larger values go to one of 2^SUB_BITS equal buckets of their
+ * power-of-two range, so a percentile is off by at most 1/16 of the value and the whole long range fits in
+ * under a thousand counters. Recording is O(1) and does not allocate.
+ */
+
+public class LongHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = SUB_COUNT + (63 - SUB_BITS) * SUB_COUNT;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    /**
+     * Add a value.
+     *
+     * @param value value to add
+     * @throws IllegalArgumentException value is negative
+     */
+    public synchronized void record(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value: " + value);
+        }
+        counts[bucket(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Get number of values added.
+     *
+     * @return value count
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Get smallest value added.
+     *
+     * @return smallest value, 0 if empty
+     */
+    public synchronized long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * Get largest value added.
+     *
+     * @return largest value, 0 if empty
+     */
+    public synchronized long getMax() {
+        return max;
+    }
+
+    /**
+     * Get mean of values added.
+     *
+     * @return exact mean, 0 if empty
+     */
+    public synchronized double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Get value at a percentile.
+     *
+     * @param percentile percentile from 0 to 100
+     * @return upper end of the bucket holding the value, clamped to min and max; 0 if empty
+     * @throws IllegalArgumentException percentile outside 0 to 100
+     */
+    public synchronized long getPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile outside 0 to 100: " + percentile);
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.max(min, Math.min(max, upperBound(i)));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Format summary as a JSON object with count, min, mean, p50, p90, p99 and max.
+     *
+     * @return JSON object
+     */
+    public synchronized String toJson() {
+        return String.format("{\"count\":%d,\"min\":%d,\"mean\":%.1f,\"p50\":%d,\"p90\":%d,\"p99\":%d,\"max\":%d}",
+                count, getMin(), getMean(), getPercentile(50), getPercentile(90), getPercentile(99), max);
+    }
+
+    /**
+     * Get bucket of a value.
+     *
+     * @param value non-negative value
+     * @return bucket index
+     */
+    private static int bucket(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return SUB_COUNT + shift * SUB_COUNT + (int) (value >>> shift) - SUB_COUNT;
+    }
+
+    /**
+     * Get largest value of a bucket.
+     *
+     * @param bucket bucket index
+     * @return largest value that falls into bucket
+     */
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_COUNT) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_COUNT) / SUB_COUNT;
+        long lower = (long) (SUB_COUNT + (bucket - SUB_COUNT) % SUB_COUNT) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -1,6 +1,8 @@
-import java.util.Arrays;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.LinkedList;
-import java.util.Stack;
+import java.util.List;
 
 /**
  * @author BorisMirage
@@ -8,30 +10,49 @@ import java.util.Stack;
  * Created with IntelliJ IDEA
  */
 
-public class Maze {
+public class Maze implements Closeable {
 
    // public static final boolean FREE = false;
     // public static final boolean WALL = true;
 
     private MazeCoord entry;
     private MazeCoord exit;
-    private int[][] data;
+    private MazeGrid grid;
     private LinkedList<MazeCoord> path = new LinkedList<>();
-    private int[][] visitTimes;      // Record coord visited times
-    private Stack<MazeCoord> pathStack = new Stack<>();
+    private MazeSearchResult pendingPath;   // result of last search whose path is not copied into path yet
+    private int pathVersion;        // increased whenever path is cleared or replaced
+    private int expandedCount;      // cells expanded by last search
+    private int pathCost = -1;      // weights stepped onto by path, -1 if no path
+    private SearchStats lastStats;  // measurements of last search, null if metrics are disabled
+    private MazeSolver solver;
+    private ComponentIndex components;      // null until buildComponentIndex is called
+    private DistanceField exitField;        // distances to exit stored with the maze file, null if none
+    private long exitFieldVersion;          // grid version exitField belongs to
+    private List<MazeChangeListener> listeners = new ArrayList<>();
 
     /**
      * Necessary data that to construct a maze.
      *
-     * @param mazeData 2D int array that store the info of maze (wall, space, distance).
+     * @param mazeData 2D int array that store the info of maze (-1 for wall, otherwise space).
      * @param startLoc MazeCoord start location
      * @param exitLoc  MazeCoord exit location
      */
     public Maze(int[][] mazeData, MazeCoord startLoc, MazeCoord exitLoc) {
+        this(MazeGrid.fromData(mazeData), startLoc, exitLoc);
+    }
+
+    /**
+     * Construct a maze on a packed wall grid.
+     *
+     * @param mazeGrid wall grid of the maze
+     * @param startLoc MazeCoord start location
+     * @param exitLoc  MazeCoord exit location
+     */
+    public Maze(MazeGrid mazeGrid, MazeCoord startLoc, MazeCoord exitLoc) {
         entry = startLoc;
         exit = exitLoc;
-        data = mazeData;                // int array that store walls and distance
-        visitTimes = new int[data.length][data[0].length];
+        grid = mazeGrid;                // one bit per cell that store walls
+        solver = grid.isWeighted() ? new DijkstraSolver() : new BfsSolver();
     }
 
     /**
@@ -40,7 +61,7 @@ public class Maze {
      * @return number of rows in maze
      */
     public int numRows() {
-        return data.length;
+        return grid.numRows();
     }
 
 
@@ -50,7 +71,7 @@ public class Maze {
      * @return number of columns in maze.
      */
     public int numCols() {
-        return data[0].length;
+        return grid.numCols();
     }
 
     /**
@@ -60,7 +81,7 @@ public class Maze {
      * @return true if input location has wall, otherwise return false.
      */
     public boolean hasWallAt(MazeCoord loc) {
-        return data[loc.getRow()][loc.getCol()] == -1;
+        return grid.hasWall(loc.getRow(), loc.getCol());
     }
 
     /**
@@ -82,128 +103,365 @@ public class Maze {
     }
 
 
+    /**
+     * Get wall grid of this maze.
+     *
+     * @return wall grid
+     */
+    public MazeGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Release the file the grid keeps open, if it keeps one as TiledMazeGrid does. A maze owns the grid it was
+     * constructed or loaded with, so whoever loaded the maze closes it; it can not be searched afterwards.
+     *
+     * @throws IOException changed walls can not be written back
+     */
+    public void close() throws IOException {
+        if (grid instanceof Closeable) {
+            ((Closeable) grid).close();
+        }
+    }
+
     /**
      * Get path from entry to exit.
+     * The path of the last search is only converted to MazeCoord (and refined, for solvers that defer it)
+     * on the first call.
      *
      * @return path from entry to exit
      */
-    public LinkedList<MazeCoord> getPath() {
+    public synchronized LinkedList<MazeCoord> getPath() {
+        if (pendingPath != null) {
+            int cols = numCols();
+            for (int cell : pendingPath.getPath()) {
+                path.add(new MazeCoord(cell / cols, cell % cols));
+            }
+            pendingPath = null;
+        }
         return path;
     }
 
     /**
-     * Search path from entry to exit.
-     * Since the min distance was found through exit to entry, path needs to be reversed in pathOutput.
+     * Get path from entry to exit as cell indices (row * numCols() + col), without building MazeCoord objects.
+     *
+     * @return cell indices from entry to exit, empty if no path was found
+     */
+    public synchronized int[] getPathCells() {
+        if (pendingPath != null) {
+            return pendingPath.getPath();
+        }
+        int[] cells = new int[path.size()];
+        int i = 0;
+        for (MazeCoord loc : path) {
+            cells[i++] = loc.getRow() * numCols() + loc.getCol();
+        }
+        return cells;
+    }
+
+    /**
+     * Get modification count of path, so views can tell their drawing of it is stale.
+     *
+     * @return number of times path was cleared or replaced so far
+     */
+    public synchronized int getPathVersion() {
+        return pathVersion;
+    }
+
+    /**
+     * Get number of cells of path from entry to exit, without building the path.
+     *
+     * @return path cells, 0 if no path was found
+     */
+    public synchronized int getPathLength() {
+        return pendingPath != null ? pendingPath.getPathLength() : path.size();
+    }
+
+    /**
+     * Get cost of path from entry to exit, the sum of the weights of its cells after entry.
+     * On an unweighted grid this is the number of steps; on a weighted grid it is only the cheapest cost if the
+     * solver weighs cells, as DijkstraSolver does.
+     *
+     * @return path cost, -1 if no path was found
+     */
+    public synchronized int getPathCost() {
+        return pathCost;
+    }
+
+    /**
+     * Get number of cells expanded by last search.
+     *
+     * @return cells taken out of the search queue, 0 before first search
+     */
+    public synchronized int getExpandedCount() {
+        return expandedCount;
+    }
+
+    /**
+     * Get measurements of last search, which are also added to SearchMetrics.global().
+     *
+     * @return stats of last search, null before first search or if SearchMetrics.ENABLED is off
+     */
+    public synchronized SearchStats getLastStats() {
+        return lastStats;
+    }
+
+    /**
+     * Get solver used by search.
+     *
+     * @return current solver
+     */
+    public MazeSolver getSolver() {
+        return solver;
+    }
+
+    /**
+     * Set solver used by search. Breadth-first search is used by default, DijkstraSolver if the grid was
+     * weighted when the maze was constructed.
+     *
+     * @param mazeSolver new solver
+     */
+    public void setSolver(MazeSolver mazeSolver) {
+        if (solver instanceof MazeChangeListener) {
+            removeChangeListener((MazeChangeListener) solver);
+        }
+        solver = mazeSolver;
+        if (solver instanceof MazeChangeListener) {
+            addChangeListener((MazeChangeListener) solver);
+        }
+        seedExitField();
+    }
+
+    /**
+     * Get distances to exit that were loaded with the maze, for example from a binary maze file written with -d.
+     *
+     * @return distance field of exit, null if none was loaded or walls changed since
+     */
+    public DistanceField getExitField() {
+        return exitField != null && exitFieldVersion == grid.getVersion() ? exitField : null;
+    }
+
+    /**
+     * Attach precomputed distances to exit for the current walls. A DistanceFieldSolver set as solver, now or
+     * later, gets the field added to its cache instead of computing it on the first search.
+     *
+     * @param field distance field of exit, or null to drop it
+     * @throws IllegalArgumentException field leads to another cell than exit
+     */
+    public void setExitField(DistanceField field) {
+        if (field != null && field.getExit() != exit.getRow() * numCols() + exit.getCol()) {
+            throw new IllegalArgumentException("Distance field does not lead to exit " + exit);
+        }
+        exitField = field;
+        exitFieldVersion = grid.getVersion();
+        seedExitField();
+    }
+
+    /**
+     * Add loaded distances to exit to the cache of the solver, if it is a DistanceFieldSolver.
+     */
+    private void seedExitField() {
+        DistanceField field = getExitField();
+        if (field != null && solver instanceof DistanceFieldSolver) {
+            ((DistanceFieldSolver) solver).getCache().put(grid, field);
+        }
+    }
+
+    /**
+     * Register listener that is told about every wall change.
+     *
+     * @param listener listener to add
+     */
+    public void addChangeListener(MazeChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregister listener.
+     *
+     * @param listener listener to remove
+     */
+    public void removeChangeListener(MazeChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Put or remove a wall at a location.
+     * With an IncrementalPlanner as solver, the planner repairs the part of its shortest path tree the change
+     * affects and the repaired path replaces the current one before this method returns. With any other solver
+     * the current path is cleared, call search again to get the path of the changed maze.
+     *
+     * @param loc  location inside maze
+     * @param wall true to put a wall, false to make the cell free
+     */
+    public void setWall(MazeCoord loc, boolean wall) {
+        if (loc.getRow() < 0 || loc.getRow() >= numRows() || loc.getCol() < 0 || loc.getCol() >= numCols()) {
+            throw new IllegalArgumentException("Location outside maze: " + loc);
+        }
+        if (hasWallAt(loc) == wall) {
+            return;
+        }
+        grid.setWall(loc.getRow(), loc.getCol(), wall);
+        synchronized (this) {
+            path.clear();
+            pendingPath = null;
+            pathCost = -1;
+            pathVersion++;
+        }
+        components = null;
+        int cell = loc.getRow() * numCols() + loc.getCol();
+        for (MazeChangeListener listener : listeners) {
+            listener.wallChanged(grid, cell, wall);
+        }
+        if (solver instanceof IncrementalPlanner) {
+            /* The planner was told about the change above, so this only repairs what it affects */
+            search();
+        }
+    }
+
+    /**
+     * Label connected components of free cells, so search and isReachable can reject unreachable exits in O(1).
+     * The index is dropped when a wall changes.
+     *
+     * @return component index of this maze
+     */
+    public ComponentIndex buildComponentIndex() {
+        components = ComponentIndex.build(grid);
+        return components;
+    }
+
+    /**
+     * Check if one location can reach another, building the component index if needed.
+     *
+     * @param from start location
+     * @param to   target location
+     * @return true if both are free and connected
+     */
+    public boolean isReachable(MazeCoord from, MazeCoord to) {
+        if (!isFree(from) || !isFree(to)) {
+            return false;
+        }
+        if (components == null) {
+            buildComponentIndex();
+        }
+        return components.isConnected(from.getRow() * numCols() + from.getCol(), to.getRow() * numCols() + to.getCol());
+    }
+
+    /**
+     * Search path from entry to exit with current solver and store it in path.
+     * If the component index was built, the solver only runs when entry and exit share a component.
      * This method can be accessed outside of Maze class.
      *
      * @return true if there exist a path from entry to exit, otherwise false
      */
     public boolean search() {
-        return searchHelper(entry,data,0,visitTimes);
-    }
-
-    private boolean searchHelper(MazeCoord a, int[][]data, int direction, int[][] visitTimes){
-        //check the input and output position whether has wall or out of bound
-        if(a.getRow() > numRows() - 1 || a.getRow() < 0 || a.getCol() > numCols() - 1 || a.getCol() < 0 || hasWallAt(a)){
-            return false;}
-        if(exit.getRow() > numRows() - 1 || exit.getRow() < 0 || exit.getCol() > numCols() - 1 || exit.getCol() < 0 || hasWallAt(exit)){
-            return false;}
-        if(!a.equals(entry)&& visitTimes[a.getRow()][a.getCol()] > 3){
-            return false;}
-        if (a.equals(exit)){
-            return true;
-        }
-        //move up if it not comes from up
-        if(direction!=2){
-            visitTimes[a.getRow()][a.getCol()]++;
-            MazeCoord upLoc = move(a,1);
-            if(searchHelper(upLoc,data,2,visitTimes)){
-                data[upLoc.getRow()][upLoc.getCol()] = Math.min(data[a.getRow()][a.getCol()]+1,data[upLoc.getRow()][upLoc.getCol()]);
-                return true;
-            }
+        return search(null);
+    }
+
+    /**
+     * Search path from entry to exit, reporting progress to a monitor that can cancel the search.
+     * The search may run on another thread than the one drawing the maze: the old path stays visible until
+     * the new result is stored at the end. Walls must not be changed while searching.
+     * Unless SearchMetrics.ENABLED is off, the search is measured into getLastStats() and SearchMetrics.global().
+     *
+     * @param monitor progress receiver, or null
+     * @return true if there exist a path from entry to exit, false if not or search was cancelled
+     */
+    public boolean search(SearchMonitor monitor) {
+        long startBytes = 0;
+        long startTime = 0;
+        if (SearchMetrics.ENABLED) {
+            startBytes = SearchMetrics.allocatedBytes();
+            startTime = System.nanoTime();
         }
-        //move down if it not comes from down
-        if(direction!=1){
-            visitTimes[a.getRow()][a.getCol()]++;
-            MazeCoord downLoc = move(a,2);
-            if(searchHelper(downLoc,data,1,visitTimes)){
-                data[downLoc.getRow()][downLoc.getCol()] = Math.min(data[a.getRow()][a.getCol()]+1,data[downLoc.getRow()][downLoc.getCol()]);
-                return true;
+
+        MazeSearchResult result = null;
+        if (isFree(entry) && isFree(exit)) {
+            int cols = numCols();
+            int entryCell = entry.getRow() * cols + entry.getCol();
+            int exitCell = exit.getRow() * cols + exit.getCol();
+            ComponentIndex index = components;
+            if (index == null || index.isConnected(entryCell, exitCell)) {
+                result = solver.solve(grid, entryCell, exitCell, monitor);
             }
         }
-        //move left if it is not from left
-        if(direction!=4){
-            visitTimes[a.getRow()][a.getCol()]++;
-            MazeCoord leftLoc = move(a,3);
-            if(searchHelper(leftLoc,data,4,visitTimes)){
-                data[leftLoc.getRow()][leftLoc.getCol()] = Math.min(data[a.getRow()][a.getCol()]+1,data[leftLoc.getRow()][leftLoc.getCol()]);
-                return true;
-            }
+
+        SearchStats stats = null;
+        if (SearchMetrics.ENABLED) {
+            long wallNanos = System.nanoTime() - startTime;
+            long allocated = startBytes < 0 ? -1 : SearchMetrics.allocatedBytes() - startBytes;
+            stats = result == null
+                    ? new SearchStats(solver.getClass().getSimpleName(), 0, 0, allocated, wallNanos, 0)
+                    : new SearchStats(solver.getClass().getSimpleName(), result.getExpandedCount(),
+                    result.getPeakFrontier(), allocated, wallNanos, result.getPathLength());
+            SearchMetrics.global().record(stats);
         }
-        //move right if it is not from right
-        if(direction!=3){
-            visitTimes[a.getRow()][a.getCol()]++;
-            MazeCoord rightLoc = move(a,4);
-            if(searchHelper(rightLoc,data,3,visitTimes)){
-                data[rightLoc.getRow()][rightLoc.getCol()] = Math.min(data[a.getRow()][a.getCol()]+1,data[rightLoc.getRow()][rightLoc.getCol()]);
-                return true;
-            }
+
+        synchronized (this) {
+            path.clear();
+            pathVersion++;
+            lastStats = stats;
+            expandedCount = result == null ? 0 : result.getExpandedCount();
+            pendingPath = result != null && result.isFound() ? result : null;
+            pathCost = pendingPath == null ? -1 : costOf(pendingPath);
+            return pendingPath != null;
         }
-        return false;
     }
 
-
     /**
-     * Check if input position can be moved to.
+     * Search a path between any two locations with current solver, leaving path of this maze alone.
+     * Any number of threads can query at once without locking as long as walls do not change meanwhile, which
+     * a frozen grid (see MazeGrid.freeze) guarantees, and the solver keeps no state between searches, which
+     * holds for every solver that is not a MazeChangeListener. A built component index rejects unconnected
+     * pairs without searching. Queries are not recorded in SearchMetrics.
      *
-     * @param c           input coord
-     * @param visitRecord 2D int array record visit times
-     * @return -1 if out of bound or has wall, 0 if visited more than 4 times, or 1 if available.
+     * @param from start location
+     * @param to   target location
+     * @return search result, without path if a location is outside maze or a wall
      */
-    private int checkCoord(MazeCoord c, int[][] visitRecord) {
-        if (c.getRow() > numRows() - 1 || c.getRow() < 0 || c.getCol() > numCols() - 1 || c.getCol() < 0 || hasWallAt(c)) {
-            return -1;
-        } else if (visitRecord[c.getRow()][c.getCol()] > 3) {
-            return 0;
-        } else {
-            return 1;
+    public MazeSearchResult query(MazeCoord from, MazeCoord to) {
+        if (!isFree(from) || !isFree(to)) {
+            return new MazeSearchResult(null, 0);
+        }
+        int cols = numCols();
+        int fromCell = from.getRow() * cols + from.getCol();
+        int toCell = to.getRow() * cols + to.getCol();
+        ComponentIndex index = components;
+        if (index != null && !index.isConnected(fromCell, toCell)) {
+            return new MazeSearchResult(null, 0);
         }
+        return solver.solve(grid, fromCell, toCell);
     }
 
     /**
-     * Move to input MazeCoord to selected direction.
+     * Get cost of a found path, adding up weights along it if the solver did not weigh cells.
      *
-     * @param coord       input MazeCoord
-     * @param orientation 1 - move upward
-     *                    2 - move downward
-     *                    3 - move left
-     *                    4 - move right
-     * @return MazeCoord that after movement
+     * @param result found search result
+     * @return path cost
      */
-    private MazeCoord move(MazeCoord coord, int orientation) {
-        int newCol = coord.getCol();
-        int newRow = coord.getRow();
-
-        if (orientation == 1) {
-            return new MazeCoord(newRow - 1, newCol);
-        } else if (orientation == 2) {
-            return new MazeCoord(newRow + 1, newCol);
-        } else if (orientation == 3) {
-            return new MazeCoord(newRow, newCol - 1);
-        } else if (orientation == 4) {
-            return new MazeCoord(newRow, newCol + 1);
-        } else {
-            System.out.println("Orientation Error!");
-            return coord;
+    private int costOf(MazeSearchResult result) {
+        if (result.getCost() >= 0) {
+            return result.getCost();
+        }
+        if (!grid.isWeighted()) {
+            return result.getPathLength() - 1;
         }
+        int[] cells = result.getPath();
+        int cost = 0;
+        for (int i = 1; i < cells.length; i++) {
+            cost += grid.getWeight(cells[i]);
+        }
+        return cost;
     }
 
     /**
-     * Print distance data for debug purpose.
+     * Check if input location is inside maze and has no wall.
+     *
+     * @param loc input location
+     * @return true if location can be stepped on
      */
-    private void printData() {
-        for (int[] aData : data) {
-            System.out.println(Arrays.toString(aData));
-        }
+    private boolean isFree(MazeCoord loc) {
+        return loc.getRow() >= 0 && loc.getRow() < numRows() && loc.getCol() >= 0 && loc.getCol() < numCols()
+                && !hasWallAt(loc);
     }
-}
\ No newline at end of file
+}
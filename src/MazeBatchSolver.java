@@ -0,0 +1,315 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Solve many maze files without GUI.
+ * Every file is loaded and searched as its own task on a work-stealing pool, one result line is printed per
+ * maze in the order the files were given:
+ * <pre>
+ * fileName reachable=true pathLength=99 cost=98 expanded=231 solveMs=0.412
+ * </pre>
+ * Usage: MazeBatchSolver [-m] [-p parallelism] [-s solver] [-l landmarkFile] [-q queries] fileOrDirectory...
+ * Directories are walked recursively, parallelism defaults to number of available processors and solver
+ * (a MazeSolver.forName name) to bfs; use dijkstra for cheapest paths of weighted mazes. With -m, the
+ * SearchMetrics histograms are printed as JSON at the end. With -l, the solver is alt on landmarks mapped from a
+ * file written by LandmarkHeuristic for the maze instead of landmarks computed on the first query; a maze the
+ * file does not fit gets an ERROR line.
+ * <p>
+ * With -q, each maze is instead frozen once and the given number of queries between random free cells run on
+ * it concurrently, all threads sharing the one grid; one summary line is printed per maze:
+ * <pre>
+ * fileName queries=10000 found=9950 meanPathLength=812.4 queryMs=1520.002 qps=6578.9
+ * </pre>
+ */
+
+public class MazeBatchSolver {
+
+    private static final String USAGE = "Usage: MazeBatchSolver [-m] [-p parallelism] [-s solver] [-l landmarkFile]"
+            + " [-q queries] fileOrDirectory...";
+
+    /**
+     * Main function of batch solver.
+     *
+     * @param args options followed by maze files or directories of maze files
+     */
+    public static void main(String[] args) {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        String solverName = null;
+        Path landmarkFile = null;
+        boolean metrics = false;
+        int queries = 0;
+        int first = 0;
+        try {
+            while (first + 1 < args.length && args[first].startsWith("-")) {
+                if (args[first].equals("-m")) {
+                    metrics = true;
+                    first++;
+                    continue;
+                }
+                if (args[first].equals("-p")) {
+                    parallelism = Integer.parseInt(args[first + 1]);
+                } else if (args[first].equals("-s")) {
+                    solverName = args[first + 1];
+                    MazeSolver.forName(solverName);
+                } else if (args[first].equals("-l")) {
+                    landmarkFile = Paths.get(args[first + 1]);
+                } else if (args[first].equals("-q")) {
+                    queries = Integer.parseInt(args[first + 1]);
+                } else {
+                    break;
+                }
+                first += 2;
+            }
+        } catch (IllegalArgumentException exc) {
+            System.out.println("ERROR: " + exc.getMessage());
+            return;
+        }
+        if (args.length <= first || parallelism < 1 || queries < 0) {
+            System.out.println(USAGE);
+            return;
+        }
+        if (landmarkFile != null) {
+            if (solverName != null && !solverName.equals("alt")) {
+                System.out.println("ERROR: Landmark file needs solver alt, not " + solverName);
+                return;
+            }
+            if (!Files.isRegularFile(landmarkFile)) {
+                System.out.println("ERROR: File not found: " + landmarkFile);
+                return;
+            }
+            solverName = "alt";
+        } else if (solverName == null) {
+            solverName = "bfs";
+        }
+
+        List<Path> files = new ArrayList<>();
+        for (int i = first; i < args.length; i++) {
+            try {
+                files.addAll(listMazeFiles(Paths.get(args[i])));
+            } catch (IOException exc) {
+                System.out.println("ERROR: Can not read " + args[i] + ": " + exc.getMessage());
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            if (queries > 0) {
+                for (Path file : files) {
+                    System.out.println(query(file, solverName, landmarkFile, queries, pool));
+                }
+            } else {
+                solveAll(files, solverName, landmarkFile, pool);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        if (metrics) {
+            System.out.println(SearchMetrics.global().getJson());
+        }
+    }
+
+    /**
+     * Solve every file on pool and print results in file order as they become available.
+     *
+     * @param files      maze files
+     * @param solverName MazeSolver.forName name of solver
+     * @param pool       pool to run solving tasks
+     */
+    public static void solveAll(List<Path> files, String solverName, ForkJoinPool pool) {
+        solveAll(files, solverName, null, pool);
+    }
+
+    /**
+     * Solve every file on pool and print results in file order as they become available.
+     *
+     * @param files        maze files
+     * @param solverName   MazeSolver.forName name of solver, ignored if landmarkFile is given
+     * @param landmarkFile LandmarkHeuristic file of the mazes to search with alt, or null
+     * @param pool         pool to run solving tasks
+     */
+    public static void solveAll(List<Path> files, String solverName, Path landmarkFile, ForkJoinPool pool) {
+        List<ForkJoinTask<String>> tasks = new ArrayList<>(files.size());
+        for (Path file : files) {
+            tasks.add(pool.submit(() -> solve(file, MazeSolver.forName(solverName), landmarkFile)));
+        }
+        for (ForkJoinTask<String> task : tasks) {
+            System.out.println(task.join());
+        }
+    }
+
+    /**
+     * Load and search one maze file.
+     *
+     * @param file   maze file
+     * @param solver solver to search with
+     * @return result line of maze
+     */
+    public static String solve(Path file, MazeSolver solver) {
+        return solve(file, solver, null);
+    }
+
+    /**
+     * Load and search one maze file, on landmarks mapped from a landmark file if one is given.
+     *
+     * @param file         maze file
+     * @param solver       solver to search with, ignored if landmarkFile is given
+     * @param landmarkFile LandmarkHeuristic file of the maze to search with alt, or null
+     * @return result line of maze, an ERROR line if it can not be read or searched
+     */
+    public static String solve(Path file, MazeSolver solver, Path landmarkFile) {
+        try (Maze maze = MazeLoader.load(file)) {
+            maze.setSolver(landmarkFile == null ? solver : landmarkSolver(landmarkFile, maze.getGrid()));
+            long startTime = System.nanoTime();
+            boolean reachable = maze.search();
+            long solveTime = System.nanoTime() - startTime;
+
+            return String.format("%s reachable=%b pathLength=%d cost=%d expanded=%d solveMs=%.3f", file, reachable,
+                    maze.getPathLength(), maze.getPathCost(), maze.getExpandedCount(), solveTime / 1e6);
+        } catch (NoSuchFileException exc) {
+            return file + " ERROR File not found";
+        } catch (IOException exc) {
+            return file + " ERROR " + exc.getMessage();
+        } catch (UncheckedIOException exc) {
+            /* Tiles or the paged search state of a tiled maze could not be read or written */
+            return file + " ERROR " + exc.getCause().getMessage();
+        }
+    }
+
+    /**
+     * Load one maze file and run random queries on its frozen grid from all workers of pool.
+     * Query i goes between two free cells drawn by a generator seeded with i, so runs are repeatable.
+     *
+     * @param file       maze file
+     * @param solverName MazeSolver.forName name of a solver that keeps no state between searches
+     * @param queries    number of queries
+     * @param pool       pool to run queries
+     * @return summary line of maze
+     */
+    public static String query(Path file, String solverName, int queries, ForkJoinPool pool) {
+        return query(file, solverName, null, queries, pool);
+    }
+
+    /**
+     * Load one maze file and run random queries on its frozen grid from all workers of pool, on landmarks mapped
+     * from a landmark file if one is given.
+     *
+     * @param file         maze file
+     * @param solverName   MazeSolver.forName name of a solver that keeps no state between searches, ignored if
+     *                     landmarkFile is given
+     * @param landmarkFile LandmarkHeuristic file of the maze to search with alt, or null
+     * @param queries      number of queries
+     * @param pool         pool to run queries
+     * @return summary line of maze, an ERROR line if it can not be read or searched
+     */
+    public static String query(Path file, String solverName, Path landmarkFile, int queries, ForkJoinPool pool) {
+        MazeSolver solver = MazeSolver.forName(solverName);
+        if (solver instanceof MazeChangeListener) {
+            return file + " ERROR Solver " + solverName + " keeps state and can not be shared by queries";
+        }
+        Maze maze;
+        try (Maze loaded = MazeLoader.load(file)) {
+            maze = new Maze(loaded.getGrid().freeze(), loaded.getEntryLoc(), loaded.getExitLoc());
+        } catch (NoSuchFileException exc) {
+            return file + " ERROR File not found";
+        } catch (IOException exc) {
+            return file + " ERROR " + exc.getMessage();
+        } catch (UncheckedIOException exc) {
+            return file + " ERROR " + exc.getCause().getMessage();
+        }
+
+        if (landmarkFile != null) {
+            /* Landmarks belong to the grid they are mapped for, so map them for the frozen copy that is searched */
+            try {
+                solver = landmarkSolver(landmarkFile, maze.getGrid());
+            } catch (IOException exc) {
+                return file + " ERROR " + exc.getMessage();
+            }
+        }
+        maze.setSolver(solver);
+        maze.buildComponentIndex();
+        long startTime = System.nanoTime();
+        long[] totals;
+        try {
+            totals = pool.submit(() -> IntStream.range(0, queries).parallel()
+                    .mapToObj(i -> {
+                        SplittableRandom random = new SplittableRandom(i);
+                        MazeSearchResult result = maze.query(randomFreeCell(maze, random),
+                                randomFreeCell(maze, random));
+                        return new long[]{result.isFound() ? 1 : 0, result.getPathLength()};
+                    })
+                    .reduce(new long[2], (a, b) -> new long[]{a[0] + b[0], a[1] + b[1]})).join();
+        } catch (UncheckedIOException exc) {
+            /* join may rethrow a copy of the worker's exception with the original as cause */
+            Throwable cause = exc.getCause();
+            while (cause instanceof UncheckedIOException) {
+                cause = cause.getCause();
+            }
+            return file + " ERROR " + cause.getMessage();
+        }
+        long queryTime = System.nanoTime() - startTime;
+
+        return String.format("%s queries=%d found=%d meanPathLength=%.1f queryMs=%.3f qps=%.1f", file, queries,
+                totals[0], totals[0] == 0 ? 0.0 : (double) totals[1] / totals[0], queryTime / 1e6,
+                queries / (queryTime / 1e9));
+    }
+
+    /**
+     * Create alt solver on landmarks mapped from a file.
+     *
+     * @param landmarkFile LandmarkHeuristic file
+     * @param grid         grid the landmarks were computed for
+     * @return solver using the mapped landmarks while grid is unchanged
+     * @throws IOException read error, or MazeFormatException if the file does not fit grid
+     */
+    private static MazeSolver landmarkSolver(Path landmarkFile, MazeGrid grid) throws IOException {
+        return new LandmarkSolver(LandmarkHeuristic.read(landmarkFile, grid));
+    }
+
+    /**
+     * Draw a free cell, trying random cells a bounded number of times.
+     *
+     * @param maze   maze
+     * @param random random source
+     * @return free location, or a random wall location if none was hit
+     */
+    private static MazeCoord randomFreeCell(Maze maze, SplittableRandom random) {
+        MazeCoord loc = null;
+        for (int attempt = 0; attempt < 64; attempt++) {
+            loc = new MazeCoord(random.nextInt(maze.numRows()), random.nextInt(maze.numCols()));
+            if (!maze.hasWallAt(loc)) {
+                break;
+            }
+        }
+        return loc;
+    }
+
+    /**
+     * Get maze files of a path.
+     *
+     * @param path maze file, or directory walked recursively
+     * @return regular files under path in name order
+     * @throws IOException directory can not be walked
+     */
+    private static List<Path> listMazeFiles(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            List<Path> single = new ArrayList<>();
+            single.add(path);
+            return single;
+        }
+        try (Stream<Path> walk = Files.walk(path)) {
+            return walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+    }
+}
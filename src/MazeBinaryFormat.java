@@ -0,0 +1,259 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary maze file, which can be mapped and used in place as the MazeGrid of a Maze.
+ * <p>
+ * All values are little endian. Layout:
+ * <pre>
+ *  0  magic "MAZB"
+ *  4  int version (1)
+ *  8  int flags, bit 0 set if distance field is present
+ * 12  int rows, int cols
+ * 20  int entry row, int entry col
+ * 28  int exit row, int exit col
+ * 36  zero padding up to 64
+ * 64  rows * ceil(cols / 64) long wall words, same layout as MazeGrid
+ *     optional rows * cols int distances to exit, -1 for walls and unreachable cells
+ * </pre>
+ * Usage as converter: MazeBinaryFormat [-d] textMazeFile binaryMazeFile, -d stores the distance field, which read
+ * attaches to the maze so a DistanceFieldSolver answers queries toward exit without a search.
+ */
+
+public class MazeBinaryFormat {
+
+    public static final int VERSION = 1;
+    public static final int FLAG_DISTANCES = 1;
+
+    private static final int MAGIC = 'M' | 'A' << 8 | 'Z' << 16 | 'B' << 24;
+    private static final int HEADER_SIZE = 64;
+
+    /**
+     * Convert text maze file to binary maze file.
+     *
+     * @param args [-d] text maze file path, binary output path
+     */
+    public static void main(String[] args) {
+        boolean withDistances = args.length == 3 && args[0].equals("-d");
+        if (args.length != (withDistances ? 3 : 2)) {
+            System.out.println("Usage: MazeBinaryFormat [-d] textMazeFile binaryMazeFile");
+            return;
+        }
+        String input = args[args.length - 2];
+        String output = args[args.length - 1];
+        try (Maze maze = MazeLoader.load(input)) {
+            write(maze, Paths.get(output), withDistances);
+        } catch (IllegalArgumentException exc) {
+            System.out.println("ERROR: " + exc.getMessage());
+        } catch (IOException exc) {
+            System.out.println("ERROR: " + input + ": " + exc.getMessage());
+        }
+    }
+
+    /**
+     * Check if file starts with binary maze magic.
+     *
+     * @param channel opened file
+     * @return true if file is a binary maze file
+     * @throws IOException read error
+     */
+    public static boolean isBinary(FileChannel channel) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        while (magic.hasRemaining() && channel.read(magic, magic.position()) > 0) {
+            // keep reading until 4 bytes or end of file
+        }
+        return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+    }
+
+    /**
+     * Write maze in binary format.
+     *
+     * @param maze          maze to write
+     * @param file          output path
+     * @param withDistances also store distance of every cell to exit
+     * @throws IOException              write error
+     * @throws IllegalArgumentException grid is weighted, which only the text format stores
+     */
+    public static void write(Maze maze, Path file, boolean withDistances) throws IOException {
+        MazeGrid grid = maze.getGrid();
+        if (grid.isWeighted()) {
+            throw new IllegalArgumentException("Weighted mazes can not be written in binary format");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            /* Header */
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(withDistances ? FLAG_DISTANCES : 0);
+            buffer.putInt(grid.numRows()).putInt(grid.numCols());
+            buffer.putInt(maze.getEntryLoc().getRow()).putInt(maze.getEntryLoc().getCol());
+            buffer.putInt(maze.getExitLoc().getRow()).putInt(maze.getExitLoc().getCol());
+            buffer.position(HEADER_SIZE);
+
+            /* Wall words */
+            for (int i = 0; i < grid.numRows(); i++) {
+                for (int word = 0; word < grid.wordsPerRow(); word++) {
+                    if (buffer.remaining() < Long.BYTES) {
+                        flush(buffer, channel);
+                    }
+                    buffer.putLong(grid.wallWord(i, word));
+                }
+            }
+
+            /* Distance field */
+            if (withDistances) {
+                MazeCoord exit = maze.getExitLoc();
+                boolean exitInside = exit.getRow() >= 0 && exit.getRow() < grid.numRows()
+                        && exit.getCol() >= 0 && exit.getCol() < grid.numCols();
+                DistanceField field = exitInside
+                        ? DistanceField.compute(grid, exit.getRow() * grid.numCols() + exit.getCol()) : null;
+                for (int cell = 0; cell < grid.numCells(); cell++) {
+                    if (buffer.remaining() < Integer.BYTES) {
+                        flush(buffer, channel);
+                    }
+                    buffer.putInt(field == null ? -1 : field.distanceOf(cell));
+                }
+            }
+            flush(buffer, channel);
+        }
+    }
+
+    /**
+     * Map binary maze file and build a Maze whose grid uses the mapped wall words in place.
+     * The mapping is read-only, so walls of the returned maze can not be changed. If the file has a distance
+     * field and exit is inside the grid, it is mapped too and attached as the maze's exit field.
+     *
+     * @param file binary maze file path
+     * @return maze backed by the file
+     * @throws IOException read error, or MazeFormatException if header is invalid
+     */
+    public static Maze read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            IntBuffer header = readHeader(channel);
+            int rows = header.get(3);
+            int cols = header.get(4);
+            long wallBytes = wallBytes(rows, cols);
+            if (wallBytes > Integer.MAX_VALUE) {
+                throw new IOException("Maze " + rows + " x " + cols + " is too large to map");
+            }
+            MappedByteBuffer walls = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, wallBytes);
+            walls.order(ByteOrder.LITTLE_ENDIAN);
+            MazeGrid grid = MazeGrid.wrap(rows, cols, walls.asLongBuffer());
+            MazeCoord exit = new MazeCoord(header.get(7), header.get(8));
+            Maze maze = new Maze(grid, new MazeCoord(header.get(5), header.get(6)), exit);
+            boolean exitInside = exit.getRow() >= 0 && exit.getRow() < rows && exit.getCol() >= 0
+                    && exit.getCol() < cols;
+            if ((header.get(2) & FLAG_DISTANCES) != 0 && exitInside) {
+                maze.setExitField(new DistanceField(rows, cols, exit.getRow() * cols + exit.getCol(),
+                        mapDistances(channel, rows, cols)));
+            }
+            return maze;
+        }
+    }
+
+    /**
+     * Map the precomputed distance field of binary maze file.
+     * Distance of cell (row, col) is at index row * cols + col.
+     *
+     * @param file binary maze file path
+     * @return read-only distances to exit, or null if file has no distance field
+     * @throws IOException read error, or MazeFormatException if header is invalid
+     */
+    public static IntBuffer readDistances(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            IntBuffer header = readHeader(channel);
+            if ((header.get(2) & FLAG_DISTANCES) == 0) {
+                return null;
+            }
+            return mapDistances(channel, header.get(3), header.get(4));
+        }
+    }
+
+    /**
+     * Map distance field section of a file whose header was checked.
+     *
+     * @param channel opened file
+     * @param rows    number of rows
+     * @param cols    number of columns
+     * @return read-only distances to exit
+     * @throws IOException read error, or distances are too large to map
+     */
+    private static IntBuffer mapDistances(FileChannel channel, int rows, int cols) throws IOException {
+        long distanceBytes = (long) rows * cols * Integer.BYTES;
+        if (distanceBytes > Integer.MAX_VALUE) {
+            throw new IOException("Distance field of maze " + rows + " x " + cols + " is too large to map");
+        }
+        MappedByteBuffer distances = channel.map(FileChannel.MapMode.READ_ONLY,
+                HEADER_SIZE + wallBytes(rows, cols), distanceBytes);
+        return distances.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    /**
+     * Read and check header.
+     *
+     * @param channel opened file
+     * @return header as ints, index 0 is magic
+     * @throws IOException read error or invalid header
+     */
+    private static IntBuffer readHeader(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+            // keep reading until header is complete or end of file
+        }
+        if (buffer.hasRemaining()) {
+            throw new MazeFormatException("Binary maze header is truncated", buffer.position());
+        }
+        IntBuffer header = buffer.flip().asIntBuffer();
+        if (header.get(0) != MAGIC) {
+            throw new MazeFormatException("Not a binary maze file", 0);
+        }
+        if (header.get(1) != VERSION) {
+            throw new MazeFormatException("Unsupported binary maze version " + header.get(1), 4);
+        }
+        int rows = header.get(3);
+        int cols = header.get(4);
+        if (rows < 1 || cols < 1 || (long) rows * cols > Integer.MAX_VALUE) {
+            throw new MazeFormatException("Invalid maze size " + rows + " x " + cols, 12);
+        }
+        long expectedSize = HEADER_SIZE + wallBytes(rows, cols)
+                + ((header.get(2) & FLAG_DISTANCES) != 0 ? (long) rows * cols * Integer.BYTES : 0);
+        if (channel.size() < expectedSize) {
+            throw new MazeFormatException("Binary maze file is truncated", channel.size());
+        }
+        return header;
+    }
+
+    /**
+     * Get size of wall words section.
+     *
+     * @param rows number of rows
+     * @param cols number of columns
+     * @return size in bytes
+     */
+    private static long wallBytes(int rows, int cols) {
+        return (long) rows * ((cols + 63) >>> 6) * Long.BYTES;
+    }
+
+    /**
+     * Write out buffered bytes and clear buffer.
+     *
+     * @param buffer  buffer in write mode
+     * @param channel output file
+     * @throws IOException write error
+     */
+    private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
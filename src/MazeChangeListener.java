@@ -0,0 +1,15 @@
+/**
+ * Receives wall changes made through Maze.setWall, so data derived from the walls can be repaired.
+ */
+
+public interface MazeChangeListener {
+
+    /**
+     * Called after the wall of a cell was set or cleared.
+     *
+     * @param grid wall grid that changed
+     * @param cell cell index (row * numCols() + col)
+     * @param wall true if cell now has a wall
+     */
+    void wallChanged(MazeGrid grid, int cell, boolean wall);
+}
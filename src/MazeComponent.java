@@ -1,7 +1,15 @@
 import java.awt.*;
-import java.awt.geom.Line2D;
-import java.util.ListIterator;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import javax.swing.JComponent;
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
 
 /**
  * @author BorisMirage
@@ -10,21 +18,52 @@ import javax.swing.JComponent;
  */
 
 
-public class MazeComponent extends JComponent {
+public class MazeComponent extends JComponent implements MazeChangeListener {
     /**
      * MazeComponent class
      * <p>
      * A component that displays the maze and path through it if one has been found.
+     * <p>
+     * Walls are rendered once into TILE_SIZE x TILE_SIZE images kept in an LRU cache, and a repaint only blits
+     * the tiles that intersect the clip. A tile is rendered again only after a wall under it changes.
+     * The path is a second layer of tiles over the walls, rendered from path cells grouped by block of cells.
+     * <p>
+     * The view zooms from CELL_SIZES pixels per cell down to one pixel per block of 2^k x 2^k cells, where the
+     * pixel shows the wall density of the block from a MazeMipmap. Inside a JScrollPane the mouse wheel zooms
+     * around the pointer and dragging pans.
      */
 
     private static final int START_X = 10;      // top left of corner of maze in frame
     private static final int START_Y = 10;
-    private static final int BOX_WIDTH = 20;    // width and height of one maze "location"
-    private static final int BOX_HEIGHT = 20;
     private static final int INSET = 2;         // how much smaller on each side to make entry/exit inner box
 
+    private static final int[] CELL_SIZES = {1, 2, 3, 4, 6, 8, 12, 16, 20, 24, 32, 40};  // pixels per cell
+    private static final int DEFAULT_ZOOM = 8;  // 20 pixels per cell
+
+    private static final int TILE_SIZE = 256;   // width and height of one cached image in pixels
+    private static final int MAX_TILES = 128;   // cached images per layer, 256KB each
+    private static final BufferedImage EMPTY_TILE = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+    private static final int PATH_BLOCK_SHIFT = 6;  // path cells are grouped by 64 x 64 cell blocks
+
     private Maze maze;
 
+    /* Index into CELL_SIZES, or if negative, the mipmap level drawn at one pixel per block */
+    private int zoom = DEFAULT_ZOOM;
+    private MazeMipmap mipmap;      // built when first zoomed out below one pixel per cell
+
+    /* Wall and path images by tile number, access ordered for LRU eviction */
+    private final Map<Integer, BufferedImage> tiles = newTileCache();
+    private final Map<Integer, BufferedImage> pathTiles = newTileCache();
+    private long gridVersion;       // grid version the cached tiles show
+
+    /* Path cells grouped by block, rebuilt when path version of maze changes */
+    private int pathVersion = -1;
+    private int[] pathCells = new int[0];
+    private int[] pathBlockStart = new int[1];  // start of every block in pathByBlock, and the end
+    private int[] pathByBlock = new int[0];     // indices into pathCells
+
+    private int[] frontier = new int[0];        // sampled frontier of a running search
+
     /**
      * Constructs the component.
      *
@@ -33,6 +72,13 @@ public class MazeComponent extends JComponent {
     public MazeComponent(Maze maze) {
 
         this.maze = maze;
+        this.gridVersion = maze.getGrid().getVersion();
+        maze.addChangeListener(this);
+
+        MazeMouseHandler handler = new MazeMouseHandler();
+        addMouseListener(handler);
+        addMouseMotionListener(handler);
+        addMouseWheelListener(handler);
     }
 
     /**
@@ -53,90 +99,600 @@ public class MazeComponent extends JComponent {
 
         /* Recover Graphics2D */
         Graphics2D g2 = (Graphics2D) g;
+        Rectangle clip = g2.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
 
         /* Draw the border */
-        Rectangle border = new Rectangle(START_X, START_Y, maze.numCols() * BOX_WIDTH, maze.numRows() * BOX_HEIGHT);
         g2.setColor(Color.BLACK);
-        g2.draw(border);
+        g2.drawRect(START_X, START_Y, mazeWidth(), mazeHeight());
+
+        synchronized (tiles) {
+            long version = maze.getGrid().getVersion();
+            if (version != gridVersion) {
+                tiles.clear();
+                mipmap = null;
+                gridVersion = version;
+            }
+            if (maze.getPathVersion() != pathVersion) {
+                indexPath();
+                pathTiles.clear();
+            }
+
+            /* Draw the maze */
+            drawTiles(g2, clip, false);
+
+            /* Draw the entry and exit location */
+            int size = cellSize();
+            int marker = Math.max(3, size - 2 * INSET + 1);
+            g2.setColor(Color.YELLOW);
+            int offset = size / 2 - marker / 2;
+            g2.fillRect(cellX(entryCol) + offset, cellY(entryRow) + offset, marker, marker);
+            g2.setColor(Color.GREEN);
+            g2.fillRect(cellX(exitCol) + offset, cellY(exitRow) + offset, marker, marker);
+
+            /* Draw the path*/
+            drawTiles(g2, clip, true);
+        }
+
+        /* Draw the frontier of a running search */
+        if (frontier.length > 0) {
+            int size = cellSize();
+            int dot = Math.max(2, size / 2);
+            int cols = maze.numCols();
+            g2.setColor(Color.RED);
+            for (int cell : frontier) {
+                g2.fillRect(cellX(cell % cols) + size / 2 - dot / 2, cellY(cell / cols) + size / 2 - dot / 2, dot, dot);
+            }
+        }
+    }
+
+    /**
+     * Show sampled frontier of a running search over the maze, or remove it. Must be called on the EDT.
+     *
+     * @param cells frontier cell indices, copied; null to remove
+     */
+    public void setFrontier(int[] cells) {
+        frontier = cells == null ? new int[0] : cells.clone();
+        repaint();
+    }
 
-        /* Draw the maze */
-        drawMaze(g2);
+    /**
+     * Get size of whole maze at current zoom.
+     *
+     * @return preferred size
+     */
+    public Dimension getPreferredSize() {
+        return new Dimension(2 * START_X + mazeWidth() + 1, 2 * START_Y + mazeHeight() + 1);
+    }
+
+    /**
+     * Zoom out from the default zoom until the whole maze fits in an area, or zoom is at its minimum.
+     *
+     * @param width  available width in pixels
+     * @param height available height in pixels
+     */
+    public void zoomToFit(int width, int height) {
+        int fit = Math.min(DEFAULT_ZOOM, maxZoom());
+        while (fit > minZoom() && (2 * START_X + mazeSize(maze.numCols(), fit) >= width
+                || 2 * START_Y + mazeSize(maze.numRows(), fit) >= height)) {
+            fit--;
+        }
+        setZoom(fit, new Point(0, 0));
+    }
 
-        /* Draw the entry location */
-        int entryX = START_X + entryCol * BOX_WIDTH + INSET;
-        int entryY = START_Y + entryRow * BOX_HEIGHT + INSET;
-        Rectangle entryLocation = new Rectangle(entryX, entryY, BOX_WIDTH - 2 * INSET, BOX_WIDTH - 2 * INSET);
-        g2.setColor(Color.YELLOW);
-        g2.draw(entryLocation);
-        g2.fill(entryLocation);
+    /**
+     * Change zoom, keeping the maze point under anchor in place when the component is in a viewport.
+     *
+     * @param newZoom index into CELL_SIZES, or minus mipmap level; clamped to what the maze allows
+     * @param anchor  point in component coordinates that stays in place
+     */
+    public void setZoom(int newZoom, Point anchor) {
+        newZoom = Math.max(minZoom(), Math.min(maxZoom(), newZoom));
+        if (newZoom == zoom) {
+            return;
+        }
+        JViewport viewport = viewport();
+        Point position = viewport != null ? viewport.getViewPosition() : new Point();
 
-        /* Draw the exit location */
-        int exitX = START_X + exitCol * BOX_WIDTH + INSET;
-        int exitY = START_Y + exitRow * BOX_HEIGHT + INSET;
-        Rectangle exitLocation = new Rectangle(exitX, exitY, BOX_WIDTH - 2 * INSET, BOX_HEIGHT - 2 * INSET);
-        g2.setColor(Color.GREEN);
-        g2.draw(exitLocation);
-        g2.fill(exitLocation);
+        /* Maze point under anchor in cells */
+        double anchorCol = (anchor.x - START_X) / (double) cellSize() * (1 << level());
+        double anchorRow = (anchor.y - START_Y) / (double) cellSize() * (1 << level());
 
-        /* Draw the path*/
-        if (maze.getPath().size() != 0) {
-            drawPath(g2);
+        synchronized (tiles) {
+            zoom = newZoom;
+            tiles.clear();
+            pathTiles.clear();
+        }
+        Dimension size = getPreferredSize();
+        setSize(size);
+        revalidate();
+        if (viewport != null) {
+            int x = START_X + (int) Math.round(anchorCol / (1 << level()) * cellSize()) - (anchor.x - position.x);
+            int y = START_Y + (int) Math.round(anchorRow / (1 << level()) * cellSize()) - (anchor.y - position.y);
+            scrollTo(viewport, x, y);
         }
+        repaint();
     }
 
     /**
-     * Draw maze wall
+     * Get current zoom.
      *
-     * @param g2 2-D graphics context
+     * @return index into CELL_SIZES, or minus the mipmap level
      */
-    private void drawMaze(Graphics2D g2) {
-        for (int i = 0; i < maze.numRows(); i++) {
-            for (int j = 0; j < maze.numCols(); j++) {
-                int currentX = START_Y + j * BOX_WIDTH;
-                int currentY = START_X + i * BOX_HEIGHT;
-                MazeCoord temp = new MazeCoord(i, j);
-                if (maze.hasWallAt(temp)) {
-                    Rectangle Wall = new Rectangle(currentX, currentY, BOX_WIDTH, BOX_HEIGHT);
-                    g2.setColor(Color.BLACK);
-                    g2.draw(Wall);
-                    g2.fill(Wall);
+    public int getZoom() {
+        return zoom;
+    }
+
+    /**
+     * Drop cached wall images under a changed cell and repaint.
+     *
+     * @param grid wall grid that changed
+     * @param cell cell index
+     * @param wall true if cell now has a wall
+     */
+    public void wallChanged(MazeGrid grid, int cell, boolean wall) {
+        int row = cell / grid.numCols();
+        int col = cell - row * grid.numCols();
+        synchronized (tiles) {
+
+            /* Any other unreported change is caught by the version check in paintComponent. */
+            if (grid.getVersion() == gridVersion + 1) {
+                gridVersion++;
+                if (mipmap != null) {
+                    mipmap.update(cell);
+                }
+                int x = cellX(col);
+                int y = cellY(row);
+                for (int tileY = y / TILE_SIZE; tileY <= (y + cellSize()) / TILE_SIZE; tileY++) {
+                    for (int tileX = x / TILE_SIZE; tileX <= (x + cellSize()) / TILE_SIZE; tileX++) {
+                        tiles.remove(tileNumber(tileX, tileY));
+                    }
                 }
             }
         }
+        repaint();      // the path is cleared by the change too
     }
 
     /**
-     * Draw path to exit (if exist)
+     * Blit cached tiles of one layer that intersect clip, rendering missing ones.
      *
-     * @param g2 2-D graphics context
+     * @param g2   2-D graphics context
+     * @param clip area to draw
+     * @param path true for path layer, false for wall layer
      */
-    private void drawPath(Graphics2D g2) {
+    private void drawTiles(Graphics2D g2, Rectangle clip, boolean path) {
+        int firstX = Math.max(clip.x, 0) / TILE_SIZE;
+        int firstY = Math.max(clip.y, 0) / TILE_SIZE;
+        int lastX = (Math.min(clip.x + clip.width, START_X + mazeWidth()) - 1) / TILE_SIZE;
+        int lastY = (Math.min(clip.y + clip.height, START_Y + mazeHeight()) - 1) / TILE_SIZE;
+        Map<Integer, BufferedImage> cache = path ? pathTiles : tiles;
 
-        ListIterator<MazeCoord> iter = maze.getPath().listIterator();
+        for (int tileY = firstY; tileY <= lastY; tileY++) {
+            for (int tileX = firstX; tileX <= lastX; tileX++) {
+                Integer key = tileNumber(tileX, tileY);
+                BufferedImage image = cache.get(key);
+                if (image == null) {
+                    if (path) {
+                        image = renderPathTile(tileX, tileY);
+                    } else {
+                        image = level() > 0 ? renderDensityTile(tileX, tileY) : renderWallTile(tileX, tileY);
+                    }
+                    cache.put(key, image);
+                }
+                if (image != EMPTY_TILE) {
+                    g2.drawImage(image, tileX * TILE_SIZE, tileY * TILE_SIZE, null);
+                }
+            }
+        }
+    }
 
-        MazeCoord location1 = iter.next();
+    /**
+     * Render walls under one tile at one or more pixels per cell. Runs of walls in a row are read 64 at a time
+     * from grid words and filled with one rectangle each, or written straight into the pixels at one pixel per cell.
+     *
+     * @param tileX tile column
+     * @param tileY tile row
+     * @return transparent image with walls in black, or EMPTY_TILE if there is no wall
+     */
+    private BufferedImage renderWallTile(int tileX, int tileY) {
+        MazeGrid grid = maze.getGrid();
+        int size = cellSize();
+        int firstRow = Math.max(0, Math.floorDiv(tileY * TILE_SIZE - START_Y, size));
+        int lastRow = Math.min(grid.numRows() - 1, Math.floorDiv((tileY + 1) * TILE_SIZE - 1 - START_Y, size));
+        int firstCol = Math.max(0, Math.floorDiv(tileX * TILE_SIZE - START_X, size));
+        int lastCol = Math.min(grid.numCols() - 1, Math.floorDiv((tileX + 1) * TILE_SIZE - 1 - START_X, size));
 
-        while (iter.hasNext()) {
+        BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        Graphics2D g2 = image.createGraphics();
+        boolean drawn = false;
+        try {
+            g2.translate(-tileX * TILE_SIZE, -tileY * TILE_SIZE);
+            g2.setColor(Color.BLACK);
+            for (int i = firstRow; i <= lastRow; i++) {
+                int y = START_Y + i * size;
+                for (int word = firstCol >>> 6; word <= lastCol >>> 6; word++) {
+                    long bits = grid.wallWord(i, word);
+                    if (word == firstCol >>> 6) {
+                        bits &= -1L << firstCol;
+                    }
+                    if (word == lastCol >>> 6) {
+                        bits &= -1L >>> (63 - (lastCol & 63));
+                    }
+                    while (bits != 0) {
+                        int start = Long.numberOfTrailingZeros(bits);
+                        int end = Long.numberOfTrailingZeros(~(bits | ((1L << start) - 1)));
+                        int x = START_X + ((word << 6) + start) * size;
+                        if (size == 1) {
+                            int offset = (y - tileY * TILE_SIZE) * TILE_SIZE + x - tileX * TILE_SIZE;
+                            Arrays.fill(pixels, offset, offset + end - start, Color.BLACK.getRGB());
+                        } else {
+                            g2.fillRect(x, y, (end - start) * size, size);
+                        }
+                        bits = end == 64 ? 0 : bits & -1L << end;
+                        drawn = true;
+                    }
+                }
+            }
+        } finally {
+            g2.dispose();
+        }
+        return drawn ? image : EMPTY_TILE;
+    }
 
-            /* Get next location */
-            MazeCoord location2 = iter.next();
+    /**
+     * Render wall density under one tile at one pixel per block, straight into the image pixels.
+     *
+     * @param tileX tile column
+     * @param tileY tile row
+     * @return image of black pixels with alpha of block density, or EMPTY_TILE if there is no wall
+     */
+    private BufferedImage renderDensityTile(int tileX, int tileY) {
+        if (mipmap == null) {
+            mipmap = new MazeMipmap(maze.getGrid());
+        }
+        int level = level();
+        int originX = tileX * TILE_SIZE - START_X;
+        int originY = tileY * TILE_SIZE - START_Y;
+        int firstX = Math.max(0, -originX);
+        int firstY = Math.max(0, -originY);
+        int lastX = Math.min(TILE_SIZE, mipmap.numCols(level) - originX);
+        int lastY = Math.min(TILE_SIZE, mipmap.numRows(level) - originY);
 
-            /* Set coord */
-            int x1 = START_X + location1.getCol() * BOX_WIDTH + BOX_WIDTH / 2;
-            int y1 = START_Y + location1.getRow() * BOX_HEIGHT + BOX_HEIGHT / 2;
-            int nextX = START_X + location2.getCol() * BOX_WIDTH + BOX_WIDTH / 2;
-            int nextY = START_Y + location2.getRow() * BOX_HEIGHT + BOX_HEIGHT / 2;
+        BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        boolean drawn = false;
+        for (int y = firstY; y < lastY; y++) {
+            for (int x = firstX; x < lastX; x++) {
+                int density = mipmap.density(level, originY + y, originX + x);
+                if (density != 0) {
+                    pixels[y * TILE_SIZE + x] = density << 24;
+                    drawn = true;
+                }
+            }
+        }
+        return drawn ? image : EMPTY_TILE;
+    }
 
-            /* Draw line */
-            Line2D.Double segment = new Line2D.Double(x1, y1, nextX, nextY);
+    /**
+     * Render path segments under one tile, taken from the path blocks the tile covers.
+     *
+     * @param tileX tile column
+     * @param tileY tile row
+     * @return transparent image with path in blue, or EMPTY_TILE if path does not pass the tile
+     */
+    private BufferedImage renderPathTile(int tileX, int tileY) {
+        if (pathCells.length < 2) {
+            return EMPTY_TILE;
+        }
+
+        /* Cells under the tile */
+        int size = cellSize();
+        int level = level();
+        long firstRow = Math.max(0, (long) Math.floorDiv(tileY * TILE_SIZE - START_Y, size) << level);
+        long lastRow = Math.min(maze.numRows() - 1,
+                ((long) Math.floorDiv((tileY + 1) * TILE_SIZE - 1 - START_Y, size) + 1 << level) - 1);
+        long firstCol = Math.max(0, (long) Math.floorDiv(tileX * TILE_SIZE - START_X, size) << level);
+        long lastCol = Math.min(maze.numCols() - 1,
+                ((long) Math.floorDiv((tileX + 1) * TILE_SIZE - 1 - START_X, size) + 1 << level) - 1);
+        if (firstRow > lastRow || firstCol > lastCol) {
+            return EMPTY_TILE;
+        }
+
+        BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        Graphics2D g2 = image.createGraphics();
+        boolean drawn = false;
+        try {
+            g2.translate(-tileX * TILE_SIZE, -tileY * TILE_SIZE);
             g2.setColor(Color.BLUE);
-            g2.draw(segment);
-            location1 = location2;
+            int cols = maze.numCols();
+            int blockCols = ((cols - 1) >>> PATH_BLOCK_SHIFT) + 1;
+            int lastBlockRow = (int) (lastRow >>> PATH_BLOCK_SHIFT);
+            int lastBlockCol = (int) (lastCol >>> PATH_BLOCK_SHIFT);
+            for (int blockRow = (int) (firstRow >>> PATH_BLOCK_SHIFT); blockRow <= lastBlockRow; blockRow++) {
+                for (int blockCol = (int) (firstCol >>> PATH_BLOCK_SHIFT); blockCol <= lastBlockCol; blockCol++) {
+                    int block = blockRow * blockCols + blockCol;
+                    for (int k = pathBlockStart[block]; k < pathBlockStart[block + 1]; k++) {
+                        int index = pathByBlock[k];
+                        int cell = pathCells[index];
+                        drawn = true;
+
+                        /* At one pixel per cell or less, consecutive cells are on the same or adjacent pixels. */
+                        if (size == 1) {
+                            int x = cellX(cell % cols) - tileX * TILE_SIZE;
+                            int y = cellY(cell / cols) - tileY * TILE_SIZE;
+                            if (x >= 0 && x < TILE_SIZE && y >= 0 && y < TILE_SIZE) {
+                                pixels[y * TILE_SIZE + x] = Color.BLUE.getRGB();
+                            }
+                            continue;
+                        }
+
+                        /* Segment to previous cell is drawn here only if that cell is in another block. */
+                        if (index > 0 && pathBlockOf(pathCells[index - 1]) != block) {
+                            drawSegment(g2, pathCells[index - 1], cell);
+                        }
+                        if (index < pathCells.length - 1) {
+                            drawSegment(g2, cell, pathCells[index + 1]);
+                        }
+                    }
+                }
+            }
+        } finally {
+            g2.dispose();
         }
+        return drawn ? image : EMPTY_TILE;
+    }
+
+    /**
+     * Get path block of a cell.
+     *
+     * @param cell cell index
+     * @return block number, blocks are numbered row by row
+     */
+    private int pathBlockOf(int cell) {
+        int cols = maze.numCols();
+        int row = cell / cols;
+        int col = cell - row * cols;
+        return (row >>> PATH_BLOCK_SHIFT) * (((cols - 1) >>> PATH_BLOCK_SHIFT) + 1) + (col >>> PATH_BLOCK_SHIFT);
+    }
+
+    /**
+     * Group path cells by block with a counting sort.
+     */
+    private void indexPath() {
+        pathVersion = maze.getPathVersion();
+        pathCells = maze.getPathCells();
+        int blockCols = ((maze.numCols() - 1) >>> PATH_BLOCK_SHIFT) + 1;
+        int blocks = blockCols * (((maze.numRows() - 1) >>> PATH_BLOCK_SHIFT) + 1);
+        int[] blockOf = new int[pathCells.length];
+        pathBlockStart = new int[blocks + 1];
+        for (int i = 0; i < pathCells.length; i++) {
+            blockOf[i] = pathBlockOf(pathCells[i]);
+            pathBlockStart[blockOf[i] + 1]++;
+        }
+        for (int block = 0; block < blocks; block++) {
+            pathBlockStart[block + 1] += pathBlockStart[block];
+        }
+        int[] next = Arrays.copyOf(pathBlockStart, blocks);
+        pathByBlock = new int[pathCells.length];
+        for (int i = 0; i < pathCells.length; i++) {
+            pathByBlock[next[blockOf[i]]++] = i;
+        }
+    }
+
+    /**
+     * Draw line between centers of two cells.
+     *
+     * @param g2   2-D graphics context
+     * @param from cell index of one end
+     * @param to   cell index of other end
+     */
+    private void drawSegment(Graphics2D g2, int from, int to) {
+        int cols = maze.numCols();
+        int half = cellSize() / 2;
+        int x1 = cellX(from % cols) + half;
+        int y1 = cellY(from / cols) + half;
+        int nextX = cellX(to % cols) + half;
+        int nextY = cellY(to / cols) + half;
+        g2.drawLine(x1, y1, nextX, nextY);
+    }
+
+    /**
+     * Get pixels per cell, or per block when zoomed out.
+     *
+     * @return size in pixels
+     */
+    private int cellSize() {
+        return zoom >= 0 ? CELL_SIZES[zoom] : 1;
+    }
+
+    /**
+     * Get mipmap level drawn.
+     *
+     * @return level, 0 when zoomed in to one or more pixels per cell
+     */
+    private int level() {
+        return zoom < 0 ? -zoom : 0;
+    }
+
+    /**
+     * Get x of left side of a column.
+     *
+     * @param col column number
+     * @return x in component coordinates
+     */
+    private int cellX(int col) {
+        return START_X + (col >> level()) * cellSize();
     }
-}
 
+    /**
+     * Get y of top side of a row.
+     *
+     * @param row row number
+     * @return y in component coordinates
+     */
+    private int cellY(int row) {
+        return START_Y + (row >> level()) * cellSize();
+    }
 
+    /**
+     * Get width of maze at current zoom.
+     *
+     * @return width in pixels
+     */
+    private int mazeWidth() {
+        return (int) mazeSize(maze.numCols(), zoom);
+    }
 
+    /**
+     * Get height of maze at current zoom.
+     *
+     * @return height in pixels
+     */
+    private int mazeHeight() {
+        return (int) mazeSize(maze.numRows(), zoom);
+    }
 
+    /**
+     * Get pixels taken by a number of cells at a zoom.
+     *
+     * @param cells number of cells
+     * @param zoom  zoom as in field zoom
+     * @return size in pixels
+     */
+    private static long mazeSize(int cells, int zoom) {
+        if (zoom >= 0) {
+            return (long) cells * CELL_SIZES[zoom];
+        }
+        return ((long) cells + (1L << -zoom) - 1) >> -zoom;
+    }
 
+    /**
+     * Get smallest zoom, where the whole maze is one pixel.
+     *
+     * @return minus the top mipmap level
+     */
+    private int minZoom() {
+        int levels = 0;
+        while (Math.max(maze.numRows(), maze.numCols()) > 1 << levels) {
+            levels++;
+        }
+        return -levels;
+    }
+
+    /**
+     * Get largest zoom at which the maze still fits in int pixel coordinates.
+     *
+     * @return index into CELL_SIZES
+     */
+    private int maxZoom() {
+        int largest = CELL_SIZES.length - 1;
+        while (largest > 0 && mazeSize(Math.max(maze.numRows(), maze.numCols()), largest)
+                > Integer.MAX_VALUE / 2 - 2 * START_X) {
+            largest--;
+        }
+        return largest;
+    }
+
+    /**
+     * Get number of a tile at current zoom, tiles are numbered row by row.
+     *
+     * @param tileX tile column
+     * @param tileY tile row
+     * @return tile number
+     */
+    private int tileNumber(int tileX, int tileY) {
+        int tilesPerRow = (START_X + mazeWidth() + TILE_SIZE - 1) / TILE_SIZE;
+        return tileY * tilesPerRow + tileX;
+    }
+
+    /**
+     * Get viewport showing this component.
+     *
+     * @return viewport, or null if component is not in one
+     */
+    private JViewport viewport() {
+        return (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, this);
+    }
+
+    /**
+     * Scroll viewport to a view position, kept inside the component.
+     *
+     * @param viewport viewport showing this component
+     * @param x        left of view
+     * @param y        top of view
+     */
+    private void scrollTo(JViewport viewport, int x, int y) {
+        Dimension extent = viewport.getExtentSize();
+        x = Math.max(0, Math.min(x, getWidth() - extent.width));
+        y = Math.max(0, Math.min(y, getHeight() - extent.height));
+        viewport.setViewPosition(new Point(x, y));
+    }
+
+    /**
+     * Create an LRU cache of tile images.
+     *
+     * @return empty cache holding at most MAX_TILES images
+     */
+    private static Map<Integer, BufferedImage> newTileCache() {
+        return new LinkedHashMap<Integer, BufferedImage>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<Integer, BufferedImage> eldest) {
+                return size() > MAX_TILES;
+            }
+        };
+    }
+
+    class MazeMouseHandler extends MouseAdapter { // inner class -- pans and zooms the enclosing component
+        private Point dragStart;        // screen location where drag started, null if not dragging
+        private Point viewStart;        // view position when drag started
+
+        /**
+         * Start panning.
+         *
+         * @param event mouse press
+         */
+        public void mousePressed(MouseEvent event) {
+            JViewport viewport = viewport();
+            if (viewport != null) {
+                dragStart = event.getLocationOnScreen();
+                viewStart = viewport.getViewPosition();
+                setCursor(Cursor.getPredefinedCursor(Cursor.MOVE_CURSOR));
+            }
+        }
+
+        /**
+         * Move view with the mouse.
+         *
+         * @param event mouse drag
+         */
+        public void mouseDragged(MouseEvent event) {
+            JViewport viewport = viewport();
+            if (dragStart != null && viewport != null) {
+                Point now = event.getLocationOnScreen();
+                scrollTo(viewport, viewStart.x - (now.x - dragStart.x), viewStart.y - (now.y - dragStart.y));
+            }
+        }
+
+        /**
+         * Stop panning.
+         *
+         * @param event mouse release
+         */
+        public void mouseReleased(MouseEvent event) {
+            dragStart = null;
+            setCursor(Cursor.getDefaultCursor());
+        }
+
+        /**
+         * Zoom in on wheel up and out on wheel down, around the pointer.
+         *
+         * @param event wheel movement
+         */
+        public void mouseWheelMoved(MouseWheelEvent event) {
+            setZoom(zoom - event.getWheelRotation(), event.getPoint());
+        }
+    }
+}
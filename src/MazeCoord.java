@@ -61,6 +61,15 @@ public class MazeCoord {
         return this.row == otherCoord.row && this.col == otherCoord.col;
     }
 
+    /**
+     * Hash code consistent with equals, so MazeCoord can be used in hash sets and as map key.
+     *
+     * @return hash of row and column
+     */
+    public int hashCode() {
+        return 31 * row + col;
+    }
+
     /**
      * Convert MazeCoord to format string for better output.
      *
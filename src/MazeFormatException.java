@@ -0,0 +1,70 @@
+import java.io.IOException;
+
+/**
+ * Thrown when a maze file does not follow the maze file format.
+ * In a text file line and column point at the offending character, both start from 1. In a binary file the
+ * byte offset of the offending field is reported instead, starting from 0, and line and column are -1.
+ */
+
+public class MazeFormatException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long line;
+    private final long column;
+    private final long offset;
+
+    /**
+     * Create exception for a position in text maze file.
+     *
+     * @param message what is wrong
+     * @param line    line number in file (start from 1)
+     * @param column  column number in line (start from 1)
+     */
+    public MazeFormatException(String message, long line, long column) {
+        super(message + " (line " + line + ", column " + column + ")");
+        this.line = line;
+        this.column = column;
+        this.offset = -1;
+    }
+
+    /**
+     * Create exception for a position in binary file.
+     *
+     * @param message what is wrong
+     * @param offset  byte offset in file (start from 0)
+     */
+    public MazeFormatException(String message, long offset) {
+        super(message + " (byte " + offset + ")");
+        this.line = -1;
+        this.column = -1;
+        this.offset = offset;
+    }
+
+    /**
+     * Get line number of the error.
+     *
+     * @return line number (start from 1), -1 for binary files
+     */
+    public long getLine() {
+        return line;
+    }
+
+    /**
+     * Get column number of the error.
+     *
+     * @return column number (start from 1), -1 for binary files
+     */
+    public long getColumn() {
+        return column;
+    }
+
+    /**
+     * Get byte offset of the error in a binary file.
+     *
+     * @return byte offset (start from 0), -1 for text files
+     */
+    public long getOffset() {
+        return offset;
+    }
+}
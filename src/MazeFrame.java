@@ -1,12 +1,25 @@
 import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.Toolkit;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
+import javax.swing.JScrollPane;
+import javax.swing.SwingWorker;
 
 /**
  * Maze frame class.
  * This class determine the shape of maze and path line that displayed.
+ * The maze is shown in a scroll pane, mouse wheel zooms and dragging pans (see MazeComponent).
+ * Search runs on a SwingWorker, so the window stays responsive; progress and a sample of the frontier are shown
+ * at most every PROGRESS_INTERVAL_NANOS and Esc cancels the search.
  *
  * @author BorisMirage
  * Time: 2018/07/26 20:52
@@ -22,34 +35,62 @@ public class MazeFrame extends JFrame {
 
     private Maze maze;
 
-    private static final int FRAME_WIDTH = 500;
-    private static final int FRAME_HEIGHT = 500;
+    private SearchWorker worker;    // last search started, null before first key
+
+    private static final int MIN_FRAME_WIDTH = 500;
+    private static final int MIN_FRAME_HEIGHT = 500;
+    private static final double SCREEN_FRACTION = 0.8;     // largest part of screen the frame opens with
+    private static final long PROGRESS_INTERVAL_NANOS = 50_000_000L;  // least time between progress updates
 
     private static final String PROMPT_STRING = "Type any key to start maze search...";
     private static final String SUCCESS_STRING = "Path was found!";
     private static final String FAIL_STRING = "No path can be found from entry to exit.";
+    private static final String PROGRESS_FORMAT =
+            "Searching... %,d cells expanded, frontier %,d, %.1f s (Esc to cancel)";
+    private static final String DONE_FORMAT = "%s %.1f ms, %,d cells expanded, %,.0f cells/s";
+    private static final String STATS_FORMAT = ", peak frontier %,d, %,d KB allocated";
+    private static final String CANCEL_FORMAT = "Search cancelled after %.1f ms. Type any key to search again.";
 
     /**
-     * Sets up the GUI components with the given maze data.
+     * Sets up the GUI components with the given maze.
      *
-     * @param mazeData store maze data
-     * @param entryLoc the entry location of the maze
-     * @param exitLoc  the exit location of the maze
+     * @param maze the maze to display and search, closed when the window closes
      */
-    public MazeFrame(int[][] mazeData, MazeCoord entryLoc, MazeCoord exitLoc) {
-
-        setSize(FRAME_WIDTH, FRAME_HEIGHT);
+    public MazeFrame(Maze maze) {
 
         searchStatusLabel = new JLabel(PROMPT_STRING);
         add(searchStatusLabel, BorderLayout.NORTH); // put label at the top of the frame
-        maze = new Maze(mazeData, entryLoc, exitLoc);
+        this.maze = maze;
 
+        /* Open as large as the maze needs, up to part of the screen, zoomed out if the maze does not fit */
+        Dimension screen = Toolkit.getDefaultToolkit().getScreenSize();
+        int viewWidth = (int) (screen.width * SCREEN_FRACTION);
+        int viewHeight = (int) (screen.height * SCREEN_FRACTION);
         mazeComponent = new MazeComponent(maze);
-        add(mazeComponent, BorderLayout.CENTER); // put maze display in the middle of the frame
+        mazeComponent.zoomToFit(viewWidth, viewHeight);
+        Dimension mazeSize = mazeComponent.getPreferredSize();
+
+        JScrollPane scrollPane = new JScrollPane(mazeComponent);
+        scrollPane.setPreferredSize(new Dimension(Math.min(mazeSize.width + 3, viewWidth),
+                Math.min(mazeSize.height + 3, viewHeight)));
+        add(scrollPane, BorderLayout.CENTER); // put maze display in the middle of the frame
+        pack();
+        setSize(Math.max(getWidth(), MIN_FRAME_WIDTH), Math.max(getHeight(), MIN_FRAME_HEIGHT));
 
         KeyAdapter listener = new MazeKeyListener(); // defined below
         addKeyListener(listener); // process keyboard input
         setFocusable(true);
+
+        /* The frame owns the maze, release its file when the window closes */
+        addWindowListener(new WindowAdapter() {
+            public void windowClosing(WindowEvent event) {
+                try {
+                    maze.close();
+                } catch (IOException exc) {
+                    System.out.println("ERROR: " + exc.getMessage());
+                }
+            }
+        });
     }
 
 
@@ -70,30 +111,129 @@ public class MazeFrame extends JFrame {
 
 
     class MazeKeyListener extends KeyAdapter { // inner class -- has access to outer object's instance variables
-        int count = 0;
 
         /**
          * keyPressed is called when the user types a character.
-         * The action taken is to do the maze search, then update the display according to the results of the search.
+         * The action taken is to start the maze search in background, or cancel it on Esc while it runs.
+         * Once a search has finished, further keys are ignored; after a cancelled one, any key searches again.
          *
-         * @param event What the user typed. Ignored here.
+         * @param event What the user typed. Only Esc is looked at.
          */
 
         public void keyPressed(KeyEvent event) {
-            if (count == 0) {
-                count = 1;
-                System.out.println("DEBUG: key pressed");
+            if (worker != null && worker.running) {
+                if (event.getKeyCode() == KeyEvent.VK_ESCAPE) {
+                    worker.cancel(false);
+                }
+                return;
+            }
+            if (worker == null || worker.isCancelled()) {
+                worker = new SearchWorker();
+                worker.execute();
+            }
+        }
+    }
 
-                System.out.println("DEBUG: doing maze search. . . ");
-                boolean success = maze.search();     // maze defined in enclosing MazeFrame
+    /**
+     * Progress of a running search, passed from search thread to EDT.
+     */
+    private static final class SearchProgress {
+
+        final int expanded;
+        final int frontierSize;
+        final int[] sample;
+        final long elapsedNanos;
+
+        SearchProgress(int expanded, int frontierSize, int[] sample, long elapsedNanos) {
+            this.expanded = expanded;
+            this.frontierSize = frontierSize;
+            this.sample = sample;
+            this.elapsedNanos = elapsedNanos;
+        }
+    }
 
-                mazeComponent.repaint();  // update drawing to show the results
+    /**
+     * Background maze search that publishes throttled progress and stops when cancelled.
+     */
+    private class SearchWorker extends SwingWorker<Boolean, SearchProgress> implements SearchMonitor {
 
-                System.out.println("DEBUG: " + getSearchMessage(success));
-                searchStatusLabel.setText(getSearchMessage(success));
-                System.out.println("Finished! ");
+        volatile boolean running = true;    // until doInBackground returns, which may be after cancel
+        private final long startTime = System.nanoTime();
+        private long lastProgress;
+        private long elapsedNanos;
+
+        /**
+         * Search the maze on the worker thread.
+         *
+         * @return true if path was found
+         */
+        protected Boolean doInBackground() {
+            try {
+                boolean success = maze.search(this);     // maze defined in enclosing MazeFrame
+                elapsedNanos = System.nanoTime() - startTime;
+                return success;
+            } finally {
+                running = false;
             }
         }
+
+        /**
+         * Publish progress if enough time passed since the last one. Called on the worker thread.
+         *
+         * @param expanded     cells expanded so far
+         * @param frontierSize cells reached but not expanded yet
+         * @param sample       frontier cell indices
+         * @param sampleSize   number of cells in sample
+         * @return false once cancelled
+         */
+        public boolean progress(int expanded, int frontierSize, int[] sample, int sampleSize) {
+            long now = System.nanoTime();
+            if (now - lastProgress >= PROGRESS_INTERVAL_NANOS) {
+                lastProgress = now;
+                publish(new SearchProgress(expanded, frontierSize, Arrays.copyOf(sample, sampleSize), now - startTime));
+            }
+            return !isCancelled();
+        }
+
+        /**
+         * Show latest progress and frontier sample, on the EDT.
+         *
+         * @param chunks progress published since last call
+         */
+        protected void process(List<SearchProgress> chunks) {
+            if (isCancelled()) {
+                return;
+            }
+            SearchProgress latest = chunks.get(chunks.size() - 1);
+            searchStatusLabel.setText(String.format(PROGRESS_FORMAT, latest.expanded, latest.frontierSize,
+                    latest.elapsedNanos / 1e9));
+            mazeComponent.setFrontier(latest.sample);
+        }
+
+        /**
+         * Show result of search, on the EDT.
+         */
+        protected void done() {
+            mazeComponent.setFrontier(null);     // update drawing to show the results
+            String message;
+            if (isCancelled()) {
+                message = String.format(CANCEL_FORMAT, (System.nanoTime() - startTime) / 1e6);
+            } else {
+                try {
+                    boolean success = get();
+                    int expanded = maze.getExpandedCount();
+                    message = String.format(DONE_FORMAT, getSearchMessage(success), elapsedNanos / 1e6, expanded,
+                            expanded / Math.max(elapsedNanos / 1e9, 1e-9));
+                    SearchStats stats = maze.getLastStats();
+                    if (stats != null) {
+                        message += String.format(STATS_FORMAT, stats.getPeakFrontier(),
+                                stats.getAllocatedBytes() / 1024);
+                    }
+                } catch (InterruptedException | ExecutionException exc) {
+                    message = "Search failed: " + exc.getCause();
+                }
+            }
+            searchStatusLabel.setText(message);
+        }
     }
 }
-
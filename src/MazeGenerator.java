@@ -0,0 +1,213 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Generate mazes of a given shape, for benchmarks and large test inputs.
+ * Entry is always the upper left corner and exit the lower right free corner.
+ * <p>
+ * Usage: MazeGenerator shape rows cols seed outputFile, shape is one of open, sparse, perfect, nopath, weighted.
+ */
+
+public class MazeGenerator {
+
+    /**
+     * Maze shapes that can be generated.
+     */
+    public enum Shape {
+        /** No walls at all. */
+        OPEN,
+        /** About one cell in five is a wall, placed at random. */
+        SPARSE,
+        /** Spanning tree maze: exactly one path between any two rooms, long winding corridors. */
+        PERFECT,
+        /** Sparse walls, split by a full wall row in the middle so exit is never reachable. */
+        NO_PATH,
+        /** Sparse walls, every free cell weighs 1 to MazeGrid.MAX_WEIGHT at random. */
+        WEIGHTED
+    }
+
+    private static final double SPARSE_WALL_RATE = 0.2;
+
+    /**
+     * Generate maze file from command line.
+     *
+     * @param args shape, rows, cols, seed, output file
+     */
+    public static void main(String[] args) {
+        if (args.length != 5) {
+            System.out.println("Usage: MazeGenerator open|sparse|perfect|nopath|weighted rows cols seed outputFile");
+            return;
+        }
+        try {
+            Shape shape = Shape.valueOf(args[0].toUpperCase().replace("NOPATH", "NO_PATH"));
+            Maze maze = generate(shape, Integer.parseInt(args[1]), Integer.parseInt(args[2]), Long.parseLong(args[3]));
+            writeText(maze, Paths.get(args[4]));
+        } catch (IllegalArgumentException exc) {
+            System.out.println("ERROR: " + exc.getMessage());
+        } catch (IOException exc) {
+            exc.printStackTrace();
+        }
+    }
+
+    /**
+     * Generate a maze.
+     *
+     * @param shape shape of maze
+     * @param rows  number of rows
+     * @param cols  number of columns
+     * @param seed  random seed, same seed gives same maze
+     * @return generated maze
+     */
+    public static Maze generate(Shape shape, int rows, int cols, long seed) {
+        MazeGrid grid = new MazeGrid(rows, cols);
+        Random random = new Random(seed);
+        MazeCoord entry = new MazeCoord(0, 0);
+        MazeCoord exit = new MazeCoord(rows - 1, cols - 1);
+
+        switch (shape) {
+            case SPARSE:
+                sprinkleWalls(grid, random);
+                break;
+            case PERFECT:
+                carvePerfect(grid, random);
+                exit = new MazeCoord((rows - 1) & ~1, (cols - 1) & ~1);
+                break;
+            case NO_PATH:
+                sprinkleWalls(grid, random);
+                for (int j = 0; j < cols; j++) {
+                    grid.setWall(rows / 2, j, true);
+                }
+                break;
+            case WEIGHTED:
+                sprinkleWalls(grid, random);
+                for (int i = 0; i < rows; i++) {
+                    for (int j = 0; j < cols; j++) {
+                        if (!grid.hasWall(i, j)) {
+                            grid.setWeight(i, j, 1 + random.nextInt(MazeGrid.MAX_WEIGHT));
+                        }
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+
+        grid.setWall(entry.getRow(), entry.getCol(), false);
+        if (shape != Shape.NO_PATH || exit.getRow() != rows / 2) {
+            grid.setWall(exit.getRow(), exit.getCol(), false);
+        }
+        return new Maze(grid, entry, exit);
+    }
+
+    /**
+     * Write maze in text maze file format, the weighted variant if the grid is weighted.
+     *
+     * @param maze maze to write
+     * @param file output path
+     * @throws IOException write error
+     */
+    public static void writeText(Maze maze, Path file) throws IOException {
+        MazeGrid grid = maze.getGrid();
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            boolean weighted = grid.isWeighted();
+            writer.write(grid.numRows() + " " + grid.numCols() + (weighted ? " weighted\n" : "\n"));
+            char[] line = new char[grid.numCols() + 1];
+            line[grid.numCols()] = '\n';
+            for (int i = 0; i < grid.numRows(); i++) {
+                for (int j = 0; j < grid.numCols(); j++) {
+                    if (weighted) {
+                        line[j] = grid.hasWall(i, j) ? '#' : (char) ('0' + grid.getWeight(i * grid.numCols() + j));
+                    } else {
+                        line[j] = grid.hasWall(i, j) ? '1' : '0';
+                    }
+                }
+                writer.write(line);
+            }
+            writer.write(maze.getEntryLoc().getRow() + " " + maze.getEntryLoc().getCol() + "\n");
+            writer.write(maze.getExitLoc().getRow() + " " + maze.getExitLoc().getCol() + "\n");
+        }
+    }
+
+    /**
+     * Put walls on random cells.
+     *
+     * @param grid   grid to change
+     * @param random random source
+     */
+    private static void sprinkleWalls(MazeGrid grid, Random random) {
+        for (int i = 0; i < grid.numRows(); i++) {
+            for (int j = 0; j < grid.numCols(); j++) {
+                if (random.nextDouble() < SPARSE_WALL_RATE) {
+                    grid.setWall(i, j, true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Carve a perfect maze with randomized depth-first search.
+     * Rooms are cells with even row and even column, cells between two rooms are opened when the search
+     * moves between them. An explicit stack is used, so size is not limited by thread stack.
+     *
+     * @param grid   grid to change, all cells become walls except carved ones
+     * @param random random source
+     */
+    private static void carvePerfect(MazeGrid grid, Random random) {
+        int rows = grid.numRows();
+        int cols = grid.numCols();
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                grid.setWall(i, j, true);
+            }
+        }
+
+        int roomCols = (cols + 1) / 2;
+        int roomRows = (rows + 1) / 2;
+        boolean[] visited = new boolean[roomRows * roomCols];
+        int[] stack = new int[roomRows * roomCols];
+        int[] options = new int[4];
+        int size = 0;
+        stack[size++] = 0;
+        visited[0] = true;
+        grid.setWall(0, 0, false);
+
+        while (size > 0) {
+            int room = stack[size - 1];
+            int row = room / roomCols;
+            int col = room % roomCols;
+
+            /* Collect unvisited neighbor rooms. */
+            int count = 0;
+            if (row > 0 && !visited[room - roomCols]) {
+                options[count++] = room - roomCols;
+            }
+            if (row < roomRows - 1 && !visited[room + roomCols]) {
+                options[count++] = room + roomCols;
+            }
+            if (col > 0 && !visited[room - 1]) {
+                options[count++] = room - 1;
+            }
+            if (col < roomCols - 1 && !visited[room + 1]) {
+                options[count++] = room + 1;
+            }
+            if (count == 0) {
+                size--;
+                continue;
+            }
+
+            /* Open the next room and the cell between. */
+            int next = options[random.nextInt(count)];
+            int nextRow = next / roomCols;
+            int nextCol = next % roomCols;
+            grid.setWall(row + nextRow, col + nextCol, false);
+            grid.setWall(nextRow * 2, nextCol * 2, false);
+            visited[next] = true;
+            stack[size++] = next;
+        }
+    }
+}
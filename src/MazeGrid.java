@@ -0,0 +1,369 @@
+import java.nio.LongBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.util.Arrays;
+
+/**
+ * Wall layout of a maze packed into one bit per cell.
+ * Every row starts at a new long word, so row r occupies words [r * stride, (r + 1) * stride) and
+ * the bit of column c is bit (c % 64) of word (c / 64) in that row. A set bit is a wall.
+ * Words live either on the heap or in a mapped file region (see MazeBinaryFormat); TiledMazeGrid keeps
+ * them in a file and loads them tile by tile.
+ * Search state such as distances or visited marks is kept out of the grid and only allocated by
+ * the search itself.
+ * <p>
+ * Free cells may carry a weight from 0 to MAX_WEIGHT, the cost of stepping onto them. Weights take one byte per
+ * cell and are only allocated once a weight other than 1 is set, so an unweighted grid is the all-ones case
+ * at no extra memory. Only weighing solvers such as DijkstraSolver read them, the others count steps.
+ */
+
+public class MazeGrid {
+
+    /* Direction bits of freeNeighbors, the bit position indexes neighborOffsets */
+    public static final int UP = 1;
+    public static final int DOWN = 2;
+    public static final int LEFT = 4;
+    public static final int RIGHT = 8;
+
+    public static final int MAX_WEIGHT = 9;
+
+    private final int rows;
+    private final int cols;
+    private final int stride;       // long words per row
+    private final LongBuffer walls;
+    private volatile long version;  // increased on every wall or weight change
+    private byte[] weights;         // cost of stepping onto each cell, null while all are 1
+    private int maxWeight = 1;      // bound of every weight set so far
+
+    /**
+     * Create a grid without walls.
+     *
+     * @param rows number of rows (at least 1)
+     * @param cols number of columns (at least 1)
+     */
+    public MazeGrid(int rows, int cols) {
+        this(rows, cols, LongBuffer.allocate(checkSize(rows, cols) * ((cols + 63) >>> 6)));
+    }
+
+    /**
+     * Create a grid on existing wall words, the words are used in place and not copied.
+     * A subclass that keeps its walls elsewhere passes null and must override hasWall, setWall, wallWord
+     * and setWallWord, calling wallsChanged after every change.
+     *
+     * @param rows  number of rows (at least 1)
+     * @param cols  number of columns (at least 1)
+     * @param words rows * wordsPerRow wall words starting at index 0, or null if walls are kept by subclass
+     */
+    protected MazeGrid(int rows, int cols, LongBuffer words) {
+        checkSize(rows, cols);
+        this.rows = rows;
+        this.cols = cols;
+        this.stride = (cols + 63) >>> 6;
+        if (words != null && words.capacity() < (long) rows * stride) {
+            throw new IllegalArgumentException("Not enough wall words for " + rows + " x " + cols);
+        }
+        this.walls = words;
+    }
+
+    /**
+     * Check grid size.
+     *
+     * @param rows number of rows
+     * @param cols number of columns
+     * @return rows
+     * @throws IllegalArgumentException size is not positive or cells can not be indexed by int
+     */
+    private static int checkSize(int rows, int cols) {
+        if (rows < 1 || cols < 1 || (long) rows * cols > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid maze size: " + rows + " x " + cols);
+        }
+        return rows;
+    }
+
+    /**
+     * Create a grid on wall words laid out as described above, for example a mapped file region.
+     *
+     * @param rows  number of rows
+     * @param cols  number of columns
+     * @param words wall words, used in place
+     * @return grid backed by words
+     */
+    public static MazeGrid wrap(int rows, int cols, LongBuffer words) {
+        return new MazeGrid(rows, cols, words.slice());
+    }
+
+    /**
+     * Build a grid from the old 2D int representation, where -1 is a wall.
+     *
+     * @param mazeData 2D int array, -1 for wall and anything else for free space
+     * @return new grid with the same walls
+     */
+    public static MazeGrid fromData(int[][] mazeData) {
+        MazeGrid grid = new MazeGrid(mazeData.length, mazeData[0].length);
+        for (int i = 0; i < grid.rows; i++) {
+            for (int j = 0; j < grid.cols; j++) {
+                if (mazeData[i][j] == -1) {
+                    grid.setWall(i, j, true);
+                }
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Get an immutable copy of the walls and weights, which any number of threads can search at once
+     * without locking.
+     * The copy is on the heap whatever the source is, so freezing a TiledMazeGrid reads all of it into memory.
+     * Changing a wall or weight of the copy throws ReadOnlyBufferException.
+     *
+     * @return frozen grid, this grid if it is frozen already
+     */
+    public MazeGrid freeze() {
+        if (isFrozen()) {
+            return this;
+        }
+        LongBuffer copy = LongBuffer.allocate(rows * stride);
+        for (int row = 0; row < rows; row++) {
+            for (int word = 0; word < stride; word++) {
+                copy.put(wallWord(row, word));
+            }
+        }
+        copy.flip();
+        MazeGrid frozenGrid = new MazeGrid(rows, cols, copy.asReadOnlyBuffer());
+        frozenGrid.weights = weights == null ? null : weights.clone();
+        frozenGrid.maxWeight = maxWeight;
+        return frozenGrid;
+    }
+
+    /**
+     * Check if walls and weights can not change, as for a frozen grid or a grid mapped read-only.
+     *
+     * @return true if walls are read-only
+     */
+    public boolean isFrozen() {
+        return walls != null && walls.isReadOnly();
+    }
+
+    /**
+     * Get number of rows.
+     *
+     * @return number of rows
+     */
+    public int numRows() {
+        return rows;
+    }
+
+    /**
+     * Get number of columns.
+     *
+     * @return number of columns
+     */
+    public int numCols() {
+        return cols;
+    }
+
+    /**
+     * Get number of cells, which is also the bound of a cell index (row * numCols() + col).
+     *
+     * @return number of cells
+     */
+    public int numCells() {
+        return rows * cols;
+    }
+
+    /**
+     * Check if a cell has wall. Location must be inside the grid.
+     *
+     * @param row row number
+     * @param col column number
+     * @return true if cell has wall
+     */
+    public boolean hasWall(int row, int col) {
+        return (walls.get(row * stride + (col >>> 6)) & (1L << col)) != 0;
+    }
+
+    /**
+     * Set or clear the wall of a cell. Location must be inside the grid.
+     *
+     * @param row  row number
+     * @param col  column number
+     * @param wall true to put a wall, false to make the cell free
+     * @throws ReadOnlyBufferException grid is frozen
+     */
+    public void setWall(int row, int col, boolean wall) {
+        int word = row * stride + (col >>> 6);
+        if (wall) {
+            walls.put(word, walls.get(word) | 1L << col);
+        } else {
+            walls.put(word, walls.get(word) & ~(1L << col));
+        }
+        version++;
+    }
+
+    /**
+     * Check if any cell has a weight other than 1.
+     *
+     * @return true if weights were set
+     */
+    public boolean isWeighted() {
+        return weights != null;
+    }
+
+    /**
+     * Get cost of stepping onto a cell.
+     *
+     * @param cell cell index
+     * @return weight from 0 to MAX_WEIGHT, 1 on an unweighted grid
+     */
+    public int getWeight(int cell) {
+        return weights == null ? 1 : weights[cell];
+    }
+
+    /**
+     * Set cost of stepping onto a cell. Location must be inside the grid.
+     * The first weight other than 1 allocates one byte per cell.
+     *
+     * @param row    row number
+     * @param col    column number
+     * @param weight weight from 0 to MAX_WEIGHT
+     * @throws IllegalArgumentException weight is out of range
+     * @throws ReadOnlyBufferException  grid is frozen
+     */
+    public void setWeight(int row, int col, int weight) {
+        if (weight < 0 || weight > MAX_WEIGHT) {
+            throw new IllegalArgumentException("Invalid weight: " + weight);
+        }
+        if (isFrozen()) {
+            throw new ReadOnlyBufferException();
+        }
+        if (weights == null) {
+            if (weight == 1) {
+                return;
+            }
+            weights = new byte[numCells()];
+            Arrays.fill(weights, (byte) 1);
+        }
+        weights[row * cols + col] = (byte) weight;
+        maxWeight = Math.max(maxWeight, weight);
+        version++;
+    }
+
+    /**
+     * Get a bound of all weights, which sizes the bucket queue of DijkstraSolver.
+     *
+     * @return largest weight set so far, at least 1
+     */
+    public int getMaxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * Get cell index steps to the four neighbors, indexed by the bit position of their direction:
+     * up, down, left, right. Solvers add them to the cell index instead of building coordinates.
+     *
+     * @return new array of -numCols(), numCols(), -1, 1
+     */
+    public int[] neighborOffsets() {
+        return new int[]{-cols, cols, -1, 1};
+    }
+
+    /**
+     * Get neighbors of a cell that are inside the grid and free, as direction bits UP, DOWN, LEFT and RIGHT.
+     * Walking the set bits from lowest up gives the usual expansion order up, down, left, right.
+     * Location must be inside the grid.
+     *
+     * @param row row number
+     * @param col column number
+     * @return mask of free neighbors, 0 if there is none
+     */
+    public int freeNeighbors(int row, int col) {
+        if (walls == null) {
+            int free = 0;
+            if (row > 0 && !hasWall(row - 1, col)) {
+                free |= UP;
+            }
+            if (row < rows - 1 && !hasWall(row + 1, col)) {
+                free |= DOWN;
+            }
+            if (col > 0 && !hasWall(row, col - 1)) {
+                free |= LEFT;
+            }
+            if (col < cols - 1 && !hasWall(row, col + 1)) {
+                free |= RIGHT;
+            }
+            return free;
+        }
+
+        /* Same bit one word row up or down, rotated bit one word left or right at word edges */
+        int word = row * stride + (col >>> 6);
+        long bit = 1L << col;
+        int free = 0;
+        if (row > 0 && (walls.get(word - stride) & bit) == 0) {
+            free |= UP;
+        }
+        if (row < rows - 1 && (walls.get(word + stride) & bit) == 0) {
+            free |= DOWN;
+        }
+        if (col > 0 && (walls.get(word - ((col & 63) == 0 ? 1 : 0)) & Long.rotateRight(bit, 1)) == 0) {
+            free |= LEFT;
+        }
+        if (col < cols - 1 && (walls.get(word + ((col & 63) == 63 ? 1 : 0)) & Long.rotateLeft(bit, 1)) == 0) {
+            free |= RIGHT;
+        }
+        return free;
+    }
+
+    /**
+     * Get 64 wall bits of a row at once, bit i stands for column wordIndex * 64 + i.
+     * Bits past the last column are always 0.
+     *
+     * @param row       row number
+     * @param wordIndex word number inside the row, from 0 to (numCols() - 1) / 64
+     * @return wall bits
+     */
+    public long wallWord(int row, int wordIndex) {
+        return walls.get(row * stride + wordIndex);
+    }
+
+    /**
+     * Replace 64 wall bits of a row at once, bit i stands for column wordIndex * 64 + i.
+     * Bits past the last column are ignored.
+     *
+     * @param row       row number
+     * @param wordIndex word number inside the row, from 0 to (numCols() - 1) / 64
+     * @param bits      wall bits
+     * @throws ReadOnlyBufferException grid is frozen
+     */
+    public void setWallWord(int row, int wordIndex, long bits) {
+        if (wordIndex == stride - 1 && (cols & 63) != 0) {
+            bits &= (1L << cols) - 1;
+        }
+        walls.put(row * stride + wordIndex, bits);
+        version++;
+    }
+
+    /**
+     * Get modification count of walls and weights, so derived data such as cached distance fields can tell
+     * it is stale.
+     *
+     * @return number of wall changes so far
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Record a wall change made by a subclass.
+     */
+    protected void wallsChanged() {
+        version++;
+    }
+
+    /**
+     * Get number of long words used per row.
+     *
+     * @return words per row
+     */
+    public int wordsPerRow() {
+        return stride;
+    }
+}
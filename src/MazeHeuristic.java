@@ -0,0 +1,25 @@
+/**
+ * Estimate of remaining steps used by AStarSolver.
+ * An estimate must never be larger than the real distance, otherwise A* may return a longer path.
+ */
+
+public interface MazeHeuristic {
+
+    /**
+     * Manhattan distance, exact on a maze without walls.
+     */
+    MazeHeuristic MANHATTAN = (grid, cell, goal) -> {
+        int cols = grid.numCols();
+        return Math.abs(cell / cols - goal / cols) + Math.abs(cell % cols - goal % cols);
+    };
+
+    /**
+     * Estimate steps from cell to goal.
+     *
+     * @param grid wall grid
+     * @param cell cell index
+     * @param goal goal cell index
+     * @return lower bound of steps
+     */
+    int estimate(MazeGrid grid, int cell, int goal);
+}
@@ -0,0 +1,289 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Load generator of MazeService, reports latency percentiles and queries per second.
+ * <p>
+ * Every client thread opens its own connection and sends SOLVE requests back to back, each from a random free
+ * entry to one of a few random free exits, so queries toward the same exit overlap and are coalesced by the
+ * service. A query is timed from sending the request to reading END, and the streamed path is checked to have
+ * the announced length. The first tenth of every client's queries warm up the JIT and are not recorded.
+ * One result line is printed, followed by the STATS line of the service:
+ * <pre>
+ * queries=10000 clients=4 exits=8 qps=5120.3 p50Ms=0.412 p99Ms=3.105 maxMs=41.220 meanPathLength=1820.4
+ * </pre>
+ * Usage: MazeLoadGenerator [-c clients] [-n queries] [-e exits] [-p port] mazeFile
+ * Without -p a service is started in-process on a free port; with -p the service at that loopback port must
+ * already serve mazeFile under its file name.
+ */
+
+public class MazeLoadGenerator {
+
+    private static final String USAGE =
+            "Usage: MazeLoadGenerator [-c clients] [-n queries] [-e exits] [-p port] mazeFile";
+
+    /**
+     * Main function of load generator.
+     *
+     * @param args options followed by maze file
+     */
+    public static void main(String[] args) {
+        int clients = 4;
+        int queries = 10000;
+        int exits = 8;
+        int port = 0;
+        int first = 0;
+        try {
+            while (first + 1 < args.length && args[first].startsWith("-")) {
+                int value = Integer.parseInt(args[first + 1]);
+                if (args[first].equals("-c")) {
+                    clients = value;
+                } else if (args[first].equals("-n")) {
+                    queries = value;
+                } else if (args[first].equals("-e")) {
+                    exits = value;
+                } else if (args[first].equals("-p")) {
+                    port = value;
+                } else {
+                    break;
+                }
+                first += 2;
+            }
+        } catch (NumberFormatException exc) {
+            System.out.println("ERROR: " + exc.getMessage());
+            return;
+        }
+        if (args.length != first + 1 || clients < 1 || queries < clients || exits < 1) {
+            System.out.println(USAGE);
+            return;
+        }
+
+        Path file = Paths.get(args[first]);
+        Maze maze;
+        try {
+            maze = MazeLoader.load(file);
+        } catch (NoSuchFileException exc) {
+            System.out.println("ERROR: File not found: " + file);
+            return;
+        } catch (IOException exc) {
+            System.out.println("ERROR: Can not load " + file + ": " + exc.getMessage());
+            return;
+        }
+        String mazeId = file.getFileName().toString();
+
+        MazeService service = null;
+        try {
+            if (port == 0) {
+                service = new MazeService(Collections.singletonMap(mazeId, maze), 0,
+                        DistanceFieldSolver.DEFAULT_CACHE_BYTES);
+                service.start();
+                port = service.getPort();
+            }
+            System.out.println(run(maze, mazeId, port, clients, queries, exits));
+            System.out.println(request(port, "STATS"));
+        } catch (IOException | UncheckedIOException exc) {
+            System.out.println("ERROR: " + exc.getMessage());
+        } finally {
+            try {
+                if (service != null) {
+                    service.close();
+                }
+                maze.close();
+            } catch (IOException exc) {
+                System.out.println("ERROR: " + exc.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Run clients against a service and summarize.
+     *
+     * @param maze    maze served as mazeId, for picking free cells
+     * @param mazeId  maze id at the service
+     * @param port    loopback port of service
+     * @param clients number of client threads and connections
+     * @param queries total number of queries
+     * @param exits   number of distinct exits queried
+     * @return result line
+     * @throws IOException connection or protocol error
+     */
+    public static String run(Maze maze, String mazeId, int port, int clients, int queries, int exits)
+            throws IOException {
+        SplittableRandom random = new SplittableRandom(1);
+        int[] exitCells = new int[exits];
+        for (int i = 0; i < exits; i++) {
+            exitCells[i] = randomFreeCell(maze.getGrid(), random);
+        }
+
+        LongHistogram latencies = new LongHistogram();
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        List<Future<long[]>> results = new ArrayList<>();
+        long startTime = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            int share = queries / clients + (c < queries % clients ? 1 : 0);
+            SplittableRandom clientRandom = random.split();
+            results.add(pool.submit(() -> runClient(maze.getGrid(), mazeId, port, share, exitCells, clientRandom,
+                    latencies)));
+        }
+        long found = 0;
+        long pathCells = 0;
+        try {
+            for (Future<long[]> result : results) {
+                long[] totals = result.get();
+                found += totals[0];
+                pathCells += totals[1];
+            }
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", exc);
+        } catch (ExecutionException exc) {
+            throw new IOException("Client failed: " + exc.getCause(), exc.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        long elapsed = System.nanoTime() - startTime;
+
+        return String.format("queries=%d clients=%d exits=%d qps=%.1f p50Ms=%.3f p99Ms=%.3f maxMs=%.3f "
+                        + "meanPathLength=%.1f", queries, clients, exits, queries / (elapsed / 1e9),
+                latencies.getPercentile(50) / 1e6, latencies.getPercentile(99) / 1e6, latencies.getMax() / 1e6,
+                found == 0 ? 0.0 : (double) pathCells / found);
+    }
+
+    /**
+     * Send queries on one connection.
+     *
+     * @param grid      wall grid of maze
+     * @param mazeId    maze id at the service
+     * @param port      loopback port of service
+     * @param queries   number of queries of this client
+     * @param exits     exit cells to choose from
+     * @param random    random source of this client
+     * @param latencies histogram recorded queries are added to, in nanoseconds
+     * @return number of paths found and their total cells, including warm-up queries
+     * @throws IOException connection or protocol error
+     */
+    private static long[] runClient(MazeGrid grid, String mazeId, int port, int queries, int[] exits,
+                                    SplittableRandom random, LongHistogram latencies) throws IOException {
+        int cols = grid.numCols();
+        int warmup = queries / 10;
+        long found = 0;
+        long pathCells = 0;
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             Writer out = new BufferedWriter(
+                     new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII))) {
+            socket.setTcpNoDelay(true);
+            for (int q = 0; q < queries; q++) {
+                int entry = randomFreeCell(grid, random);
+                int exit = exits[random.nextInt(exits.length)];
+                long startTime = System.nanoTime();
+                out.write("SOLVE " + mazeId + " " + entry / cols + " " + entry % cols + " " + exit / cols + " "
+                        + exit % cols + "\n");
+                out.flush();
+                int length = readAnswer(in);
+                if (q >= warmup) {
+                    latencies.record(System.nanoTime() - startTime);
+                }
+                if (length > 0) {
+                    found++;
+                    pathCells += length;
+                }
+            }
+            out.write("QUIT\n");
+        }
+        return new long[]{found, pathCells};
+    }
+
+    /**
+     * Read the answer to one SOLVE request.
+     *
+     * @param in connection input
+     * @return path cells received, 0 for NOPATH
+     * @throws IOException connection error, ERROR answer or path of wrong length
+     */
+    private static int readAnswer(BufferedReader in) throws IOException {
+        String header = in.readLine();
+        if (header == null) {
+            throw new IOException("Service closed connection");
+        }
+        if (header.equals("NOPATH")) {
+            return 0;
+        }
+        if (!header.startsWith("PATH ")) {
+            throw new IOException("Unexpected answer: " + header);
+        }
+        int length = Integer.parseInt(header.substring(5));
+        int cells = 0;
+        String line;
+        while ((line = in.readLine()) != null && !line.equals("END")) {
+            int words = 1;
+            for (int i = 0; i < line.length(); i++) {
+                if (line.charAt(i) == ' ') {
+                    words++;
+                }
+            }
+            cells += words / 2;
+        }
+        if (line == null || cells != length) {
+            throw new IOException("Path of " + cells + " cells, " + length + " announced");
+        }
+        return length;
+    }
+
+    /**
+     * Send one request and read its one-line answer.
+     *
+     * @param port    loopback port of service
+     * @param request request line
+     * @return answer line
+     * @throws IOException connection error
+     */
+    private static String request(int port, String request) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)) {
+            out.write(request + "\nQUIT\n");
+            out.flush();
+            return in.readLine();
+        }
+    }
+
+    /**
+     * Draw a free cell, trying random cells a bounded number of times.
+     *
+     * @param grid   wall grid
+     * @param random random source
+     * @return free cell index, or a random wall cell if none was hit
+     */
+    private static int randomFreeCell(MazeGrid grid, SplittableRandom random) {
+        int cell = 0;
+        for (int attempt = 0; attempt < 64; attempt++) {
+            cell = random.nextInt(grid.numCells());
+            if (!grid.hasWall(cell / grid.numCols(), cell % grid.numCols())) {
+                break;
+            }
+        }
+        return cell;
+    }
+}
@@ -0,0 +1,264 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Load maze file into Maze.
+ * <p>
+ * Maze file format: first line is "rows cols", followed by rows lines of '0' (free) and '1' (wall),
+ * then one line "row col" of entry and one line "row col" of exit.
+ * <p>
+ * Weighted maze files have "rows cols weighted" as first line, and their rows consist of '#' (wall) and digits
+ * '0' to '9', the cost of stepping onto a free cell (see MazeGrid.getWeight). A binary maze file is the
+ * weighted file with every '0' a '1' and every '1' a '#'.
+ * <p>
+ * The file is memory mapped and scanned byte by byte, wall bits are packed straight into MazeGrid words,
+ * so no String is created per line. Files larger than 2GB are mapped window by window.
+ * Files in MazeBinaryFormat are recognized by their magic and mapped in place instead of parsed, files of
+ * TiledMazeGrid are opened read-only with its default tile cache. The caller owns the returned maze and closes
+ * it when done, which releases the file a tiled grid keeps open.
+ */
+
+public class MazeLoader {
+
+    private static final byte WALL_CHAR = '1';
+    private static final byte FREE_CHAR = '0';
+    private static final byte WEIGHTED_WALL_CHAR = '#';
+    private static final String WEIGHTED = "weighted";
+
+    private static final long WINDOW_SIZE = 1L << 30;   // bytes mapped at a time
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+
+    /* Position of next byte in text, both start from 1 */
+    private long line = 1;
+    private long column = 1;
+
+    private MazeLoader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.fileSize = channel.size();
+    }
+
+    /**
+     * Load maze file.
+     *
+     * @param fileName maze file path
+     * @return maze described by file, to be closed by the caller
+     * @throws IOException file can not be read, or MazeFormatException if file is malformed
+     */
+    public static Maze load(String fileName) throws IOException {
+        return load(Paths.get(fileName));
+    }
+
+    /**
+     * Load maze file.
+     *
+     * @param file maze file path
+     * @return maze described by file, to be closed by the caller
+     * @throws IOException file can not be read, or MazeFormatException if file is malformed
+     */
+    public static Maze load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (MazeBinaryFormat.isBinary(channel)) {
+                return MazeBinaryFormat.read(file);
+            }
+            if (TiledMazeGrid.isTiled(channel)) {
+                return TiledMazeGrid.load(file, TiledMazeGrid.DEFAULT_CACHE_BYTES);
+            }
+            return new MazeLoader(channel).readMaze();
+        }
+    }
+
+    /**
+     * Parse whole file.
+     *
+     * @return maze described by file
+     * @throws IOException read error or malformed file
+     */
+    private Maze readMaze() throws IOException {
+
+        /* First line about maze size. */
+        int rows = readNumber();
+        skipSpaces();
+        int cols = readNumber();
+        skipSpaces();
+        boolean weighted = peek() == WEIGHTED.charAt(0);
+        if (weighted) {
+            readWord(WEIGHTED);
+        }
+        endLine();
+        if (rows < 1 || cols < 1 || (long) rows * cols > Integer.MAX_VALUE) {
+            throw error("Invalid maze size " + rows + " x " + cols);
+        }
+
+        MazeGrid grid = new MazeGrid(rows, cols);
+        byte wallChar = weighted ? WEIGHTED_WALL_CHAR : WALL_CHAR;
+
+        /* Maze rows, 64 cells packed into each word. */
+        for (int i = 0; i < rows; i++) {
+            for (int word = 0; word < grid.wordsPerRow(); word++) {
+                int count = Math.min(64, cols - word * 64);
+                long bits = 0;
+                for (int bit = 0; bit < count; bit++) {
+                    int current = peek();
+                    if (current == wallChar) {
+                        bits |= 1L << bit;
+                    } else if (weighted && current >= '0' && current <= '9') {
+                        grid.setWeight(i, word * 64 + bit, current - '0');
+                    } else if (weighted || current != FREE_CHAR) {
+                        throw error(current < 0 || current == '\n' || current == '\r'
+                                ? "Maze row is shorter than " + cols + " cells"
+                                : "Unexpected character '" + (char) current + "' in maze row");
+                    }
+                    advance();
+                }
+                grid.setWallWord(i, word, bits);
+            }
+            endLine();
+        }
+
+        /* Last two lines: entry and exit. */
+        int startRow = readNumber();
+        skipSpaces();
+        int startColumn = readNumber();
+        endLine();
+        int exitRow = readNumber();
+        skipSpaces();
+        int exitColumn = readNumber();
+        skipWhitespace();
+        if (peek() >= 0) {
+            throw error("Unexpected content after exit line");
+        }
+
+        return new Maze(grid, new MazeCoord(startRow, startColumn), new MazeCoord(exitRow, exitColumn));
+    }
+
+    /**
+     * Read a non-negative decimal number.
+     *
+     * @return number read
+     * @throws IOException read error or no number at current position
+     */
+    private int readNumber() throws IOException {
+        int current = peek();
+        if (current < '0' || current > '9') {
+            throw error("Number expected");
+        }
+        long value = 0;
+        while (current >= '0' && current <= '9') {
+            value = value * 10 + (current - '0');
+            if (value > Integer.MAX_VALUE) {
+                throw error("Number too large");
+            }
+            advance();
+            current = peek();
+        }
+        return (int) value;
+    }
+
+    /**
+     * Read a given word.
+     *
+     * @param word word expected at current position
+     * @throws IOException read error or other content at current position
+     */
+    private void readWord(String word) throws IOException {
+        for (int i = 0; i < word.length(); i++) {
+            if (peek() != word.charAt(i)) {
+                throw error("'" + word + "' expected");
+            }
+            advance();
+        }
+    }
+
+    /**
+     * Skip spaces and tabs in current line.
+     *
+     * @throws IOException read error
+     */
+    private void skipSpaces() throws IOException {
+        while (peek() == ' ' || peek() == '\t') {
+            advance();
+        }
+    }
+
+    /**
+     * Skip all whitespace including line breaks.
+     *
+     * @throws IOException read error
+     */
+    private void skipWhitespace() throws IOException {
+        int current = peek();
+        while (current == ' ' || current == '\t' || current == '\r' || current == '\n') {
+            advance();
+            current = peek();
+        }
+    }
+
+    /**
+     * Consume trailing spaces and the line break of current line.
+     *
+     * @throws IOException read error or other content before line break
+     */
+    private void endLine() throws IOException {
+        skipSpaces();
+        if (peek() == '\r') {
+            advance();
+        }
+        if (peek() != '\n') {
+            throw error(peek() < 0 ? "Unexpected end of file" : "Line break expected");
+        }
+        advance();
+    }
+
+    /**
+     * Get byte at current position without consuming it.
+     *
+     * @return byte value (0 - 255), or -1 at end of file
+     * @throws IOException mapping error
+     */
+    private int peek() throws IOException {
+        if (position >= fileSize) {
+            return -1;
+        }
+        long offset = position - windowStart;
+        if (window == null || offset >= window.limit()) {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, fileSize - position));
+            offset = 0;
+        }
+        return window.get((int) offset) & 0xFF;
+    }
+
+    /**
+     * Consume byte at current position.
+     *
+     * @throws IOException mapping error
+     */
+    private void advance() throws IOException {
+        if (peek() == '\n') {
+            line++;
+            column = 1;
+        } else {
+            column++;
+        }
+        position++;
+    }
+
+    /**
+     * Create format error at current position.
+     *
+     * @param message what is wrong
+     * @return exception to throw
+     */
+    private MazeFormatException error(String message) {
+        return new MazeFormatException(message, line, column);
+    }
+}
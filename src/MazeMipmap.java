@@ -0,0 +1,189 @@
+/**
+ * Downsampled wall density levels of a MazeGrid, for drawing mazes with less than one pixel per cell.
+ * <p>
+ * Level k has one entry per block of 2^k x 2^k cells, the fraction of the block that is wall scaled to 0..255.
+ * Level 1 is counted from grid words two rows at a time, every further level averages the up to four
+ * entries below it, until one entry covers the whole grid. All levels together take about a third of a byte
+ * per cell. A wall change is folded in by recomputing the one entry above the cell on every level.
+ */
+
+public class MazeMipmap {
+
+    private static final long EVEN_BITS = 0x5555555555555555L;
+
+    private final MazeGrid grid;
+    private final byte[][] levels;  // levels[k - 1] is level k, row major
+    private final int[] levelRows;
+    private final int[] levelCols;
+    private long version;           // grid version the levels show
+
+    /**
+     * Build all levels of a grid.
+     *
+     * @param grid wall grid
+     */
+    public MazeMipmap(MazeGrid grid) {
+        this.grid = grid;
+        int count = 0;
+        while (Math.max(grid.numRows(), grid.numCols()) > 1 << count) {
+            count++;
+        }
+        levels = new byte[count][];
+        levelRows = new int[count + 1];
+        levelCols = new int[count + 1];
+        levelRows[0] = grid.numRows();
+        levelCols[0] = grid.numCols();
+        for (int k = 1; k <= count; k++) {
+            levelRows[k] = (levelRows[k - 1] + 1) >>> 1;
+            levelCols[k] = (levelCols[k - 1] + 1) >>> 1;
+            levels[k - 1] = new byte[levelRows[k] * levelCols[k]];
+        }
+        rebuild();
+    }
+
+    /**
+     * Recompute all levels from grid.
+     */
+    public void rebuild() {
+        version = grid.getVersion();
+        if (levels.length == 0) {
+            return;
+        }
+
+        /* Level 1 from pairs of rows, 2-bit fields of (w & EVEN) + (w >>> 1 & EVEN) count walls of column pairs */
+        byte[] first = levels[0];
+        int cols = grid.numCols();
+        for (int blockRow = 0; blockRow < levelRows[1]; blockRow++) {
+            int row = blockRow << 1;
+            boolean pair = row + 1 < grid.numRows();
+            for (int word = 0; word < grid.wordsPerRow(); word++) {
+                long upper = grid.wallWord(row, word);
+                long lower = pair ? grid.wallWord(row + 1, word) : 0;
+                long upperPairs = (upper & EVEN_BITS) + (upper >>> 1 & EVEN_BITS);
+                long lowerPairs = (lower & EVEN_BITS) + (lower >>> 1 & EVEN_BITS);
+                for (int p = 0; p < 32; p++) {
+                    int col = (word << 6) + (p << 1);
+                    if (col >= cols) {
+                        break;
+                    }
+                    int walls = (int) (upperPairs >>> (p << 1) & 3) + (int) (lowerPairs >>> (p << 1) & 3);
+                    int cells = (pair ? 2 : 1) * (col + 1 < cols ? 2 : 1);
+                    first[blockRow * levelCols[1] + (col >>> 1)] = (byte) (walls * 255 / cells);
+                }
+            }
+        }
+
+        for (int k = 2; k <= levels.length; k++) {
+            for (int blockRow = 0; blockRow < levelRows[k]; blockRow++) {
+                for (int blockCol = 0; blockCol < levelCols[k]; blockCol++) {
+                    average(k, blockRow, blockCol);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fold a changed cell into all levels. A grid change that was not passed here, found by version, rebuilds.
+     *
+     * @param cell cell index of changed cell
+     */
+    public void update(int cell) {
+        if (grid.getVersion() != version + 1) {
+            rebuild();
+            return;
+        }
+        version++;
+        if (levels.length == 0) {
+            return;
+        }
+        int row = cell / grid.numCols();
+        int col = cell - row * grid.numCols();
+
+        /* Level 1 from up to four cells */
+        int walls = 0;
+        int cells = 0;
+        for (int i = row & ~1; i <= Math.min(row | 1, grid.numRows() - 1); i++) {
+            for (int j = col & ~1; j <= Math.min(col | 1, grid.numCols() - 1); j++) {
+                walls += grid.hasWall(i, j) ? 1 : 0;
+                cells++;
+            }
+        }
+        levels[0][(row >>> 1) * levelCols[1] + (col >>> 1)] = (byte) (walls * 255 / cells);
+
+        for (int k = 2; k <= levels.length; k++) {
+            average(k, row >>> k, col >>> k);
+        }
+    }
+
+    /**
+     * Get number of levels, the last one has a single entry.
+     *
+     * @return number of levels above the grid
+     */
+    public int numLevels() {
+        return levels.length;
+    }
+
+    /**
+     * Get number of block rows of a level.
+     *
+     * @param level level from 1 to numLevels()
+     * @return block rows
+     */
+    public int numRows(int level) {
+        return levelRows[level];
+    }
+
+    /**
+     * Get number of block columns of a level.
+     *
+     * @param level level from 1 to numLevels()
+     * @return block columns
+     */
+    public int numCols(int level) {
+        return levelCols[level];
+    }
+
+    /**
+     * Get wall density of a block.
+     *
+     * @param level level from 1 to numLevels()
+     * @param row   block row
+     * @param col   block column
+     * @return 0 for no wall up to 255 for all wall
+     */
+    public int density(int level, int row, int col) {
+        return levels[level - 1][row * levelCols[level] + col] & 0xFF;
+    }
+
+    /**
+     * Get grid version the levels were last brought up to date with.
+     *
+     * @return grid version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Set one entry of a level to the average of the entries below it.
+     *
+     * @param level    level from 2 to numLevels()
+     * @param blockRow block row in level
+     * @param blockCol block column in level
+     */
+    private void average(int level, int blockRow, int blockCol) {
+        byte[] below = levels[level - 2];
+        int belowRows = levelRows[level - 1];
+        int belowCols = levelCols[level - 1];
+        int sum = 0;
+        int count = 0;
+        for (int i = blockRow << 1; i <= Math.min((blockRow << 1) + 1, belowRows - 1); i++) {
+            for (int j = blockCol << 1; j <= Math.min((blockCol << 1) + 1, belowCols - 1); j++) {
+                sum += below[i * belowCols + j] & 0xFF;
+                count++;
+            }
+        }
+        levels[level - 1][blockRow * levelCols[level] + blockCol] = (byte) (sum / count);
+    }
+}
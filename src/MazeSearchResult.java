@@ -0,0 +1,143 @@
+import java.util.function.Supplier;
+
+/**
+ * Outcome of one MazeSolver search.
+ * The path may be given directly, or as length plus a refinement that builds the cells only when
+ * getPath is first called.
+ */
+
+public class MazeSearchResult {
+
+    private int[] path;
+    private Supplier<int[]> refinement;     // null once path is built
+    private final int pathLength;
+    private final int expandedCount;
+    private int peakFrontier;               // 0 unless solver tracks it
+    private int cost = -1;                  // -1 unless solver weighs cells
+
+    /**
+     * Create search result.
+     *
+     * @param path          cell indices from entry to exit (both included), or null if exit is not reachable
+     * @param expandedCount number of cells expanded by the search
+     */
+    public MazeSearchResult(int[] path, int expandedCount) {
+        this.path = path;
+        this.pathLength = path == null ? 0 : path.length;
+        this.expandedCount = expandedCount;
+    }
+
+    /**
+     * Create result of a found path whose cells are built later.
+     *
+     * @param pathLength    number of cells of the path, entry and exit included
+     * @param refinement    builds cell indices from entry to exit, called at most once
+     * @param expandedCount number of cells expanded by the search
+     */
+    public MazeSearchResult(int pathLength, Supplier<int[]> refinement, int expandedCount) {
+        this.pathLength = pathLength;
+        this.refinement = refinement;
+        this.expandedCount = expandedCount;
+    }
+
+    /**
+     * Build result by walking predecessors back from exit.
+     *
+     * @param predecessor   cell each cell was reached from, entry must be its own predecessor
+     * @param entry         entry cell index
+     * @param exit          exit cell index
+     * @param expandedCount number of cells expanded by the search
+     * @return result with path from entry to exit
+     */
+    public static MazeSearchResult fromPredecessors(int[] predecessor, int entry, int exit, int expandedCount) {
+        int length = 1;
+        for (int cell = exit; cell != entry; cell = predecessor[cell]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int cell = exit, i = length - 1; i >= 0; cell = predecessor[cell], i--) {
+            path[i] = cell;
+        }
+        return new MazeSearchResult(path, expandedCount);
+    }
+
+    /**
+     * Check if a path was found.
+     *
+     * @return true if exit is reachable from entry
+     */
+    public boolean isFound() {
+        return pathLength > 0;
+    }
+
+    /**
+     * Get number of cells of the path found, without building the path.
+     *
+     * @return cells from entry to exit (both included), 0 if not found
+     */
+    public int getPathLength() {
+        return pathLength;
+    }
+
+    /**
+     * Get path found, building it first if it was deferred.
+     *
+     * @return cell indices from entry to exit, or null if not found
+     */
+    public synchronized int[] getPath() {
+        if (refinement != null) {
+            path = refinement.get();
+            refinement = null;
+        }
+        return path;
+    }
+
+    /**
+     * Get number of cells expanded by the search.
+     *
+     * @return expanded cells
+     */
+    public int getExpandedCount() {
+        return expandedCount;
+    }
+
+    /**
+     * Get largest number of cells that were reached but not expanded at once.
+     *
+     * @return peak frontier cells, 0 if solver does not track it or metrics are disabled
+     */
+    public int getPeakFrontier() {
+        return peakFrontier;
+    }
+
+    /**
+     * Get cost of the path found: the sum of the weights of every cell stepped onto after entry.
+     *
+     * @return path cost, -1 if not found or the solver does not weigh cells (see MazeGrid.getWeight)
+     */
+    public int getCost() {
+        return isFound() ? cost : -1;
+    }
+
+    /**
+     * Set path cost, for solvers that weigh cells.
+     *
+     * @param cost path cost
+     * @return this result
+     */
+    public MazeSearchResult withCost(int cost) {
+        this.cost = cost;
+        return this;
+    }
+
+    /**
+     * Set largest frontier, for solvers that track it.
+     *
+     * @param peakFrontier peak frontier cells
+     * @return this result
+     */
+    public MazeSearchResult withPeakFrontier(int peakFrontier) {
+        this.peakFrontier = peakFrontier;
+        return this;
+    }
+}
@@ -0,0 +1,354 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local solve service: mazes are loaded once, frozen and kept resident, and path queries are answered over a
+ * loopback socket.
+ * <p>
+ * Each connection sends one ASCII request line at a time and reads the answer before the next one:
+ * <pre>
+ * SOLVE mazeId entryRow entryCol exitRow exitCol
+ *     PATH length, then the path as "row col" pairs, at most CHUNK_CELLS per line, then END
+ *     NOPATH
+ *     ERROR message
+ * STATS
+ *     one JSON line with query count, latency histogram and distance field cache counters
+ * QUIT
+ * </pre>
+ * Maze ids are the file names without directory. Every query is answered from the DistanceField of its
+ * (maze, exit) through a DistanceFieldCache that coalesces concurrent misses, so all queries toward one exit
+ * share one backward search and each costs only its path length afterwards. The path is written while it is
+ * walked and flushed line by line, so a client can consume a long path before it is complete. The distance
+ * field stored in a binary maze file written with -d seeds the cache for its exit.
+ * Every connection is served by its own thread from a cached pool.
+ */
+
+public class MazeService implements Closeable {
+
+    public static final int DEFAULT_PORT = 7777;
+    public static final int CHUNK_CELLS = 256;      // path cells per streamed line
+    public static final int MAX_ACCEPT_FAILURES = 10;           // consecutive failed accepts before stopping
+    public static final long MIN_ACCEPT_BACKOFF_MS = 10;
+    public static final long MAX_ACCEPT_BACKOFF_MS = 1000;
+
+    private static final String USAGE = "Usage: MazeService [-p port] [-b cacheBytes] mazeFile...";
+
+    private final Map<String, Maze> mazes;          // frozen grids by id
+    private final DistanceFieldCache cache;
+    private final ServerSocket server;
+    private final ExecutorService workers;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final LongHistogram latencies = new LongHistogram();    // nanoseconds from request to END
+    private volatile boolean closed;
+
+    /**
+     * Open service on a loopback port. Nothing is answered before serve or start is called.
+     *
+     * @param mazes      mazes by id, their grids are frozen if they are not already
+     * @param port       loopback port, 0 for any free port
+     * @param cacheBytes memory budget of distance fields
+     * @throws IOException port can not be bound
+     */
+    public MazeService(Map<String, Maze> mazes, int port, long cacheBytes) throws IOException {
+        this.mazes = new LinkedHashMap<>();
+        for (Map.Entry<String, Maze> entry : mazes.entrySet()) {
+            Maze maze = entry.getValue();
+            this.mazes.put(entry.getKey(), new Maze(maze.getGrid().freeze(), maze.getEntryLoc(), maze.getExitLoc()));
+        }
+        this.cache = new DistanceFieldCache(cacheBytes);
+        for (Map.Entry<String, Maze> entry : mazes.entrySet()) {
+            DistanceField field = entry.getValue().getExitField();
+            if (field != null) {
+                cache.put(this.mazes.get(entry.getKey()).getGrid(), field);     // frozen copy has the same walls
+            }
+        }
+        this.server = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "maze-service-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Main function of service, serves until the process is stopped.
+     *
+     * @param args options followed by maze files
+     */
+    public static void main(String[] args) {
+        int port = DEFAULT_PORT;
+        long cacheBytes = DistanceFieldSolver.DEFAULT_CACHE_BYTES;
+        int first = 0;
+        try {
+            while (first + 1 < args.length && args[first].startsWith("-")) {
+                if (args[first].equals("-p")) {
+                    port = Integer.parseInt(args[first + 1]);
+                } else if (args[first].equals("-b")) {
+                    cacheBytes = Long.parseLong(args[first + 1]);
+                } else {
+                    break;
+                }
+                first += 2;
+            }
+        } catch (NumberFormatException exc) {
+            System.out.println("ERROR: " + exc.getMessage());
+            return;
+        }
+        if (args.length <= first) {
+            System.out.println(USAGE);
+            return;
+        }
+
+        Map<String, Maze> mazes = new LinkedHashMap<>();
+        MazeService service = null;
+        try {
+            for (int i = first; i < args.length; i++) {
+                Path file = Paths.get(args[i]);
+                try {
+                    mazes.put(file.getFileName().toString(), MazeLoader.load(file));
+                } catch (NoSuchFileException exc) {
+                    System.out.println("ERROR: File not found: " + file);
+                    return;
+                } catch (IOException exc) {
+                    System.out.println("ERROR: Can not load " + file + ": " + exc.getMessage());
+                    return;
+                }
+            }
+            service = new MazeService(mazes, port, cacheBytes);
+        } catch (IOException exc) {
+            System.out.println("ERROR: " + exc.getMessage());
+            return;
+        } finally {
+            closeAll(mazes.values());       // the service serves frozen copies
+        }
+        try (MazeService running = service) {
+            System.out.println("Serving " + mazes.keySet() + " on " + running.server.getLocalSocketAddress());
+            running.serve();
+        } catch (IOException exc) {
+            System.out.println("ERROR: " + exc.getMessage());
+        }
+    }
+
+    /**
+     * Close loaded mazes, reporting failures.
+     *
+     * @param mazes mazes to close
+     */
+    private static void closeAll(Iterable<Maze> mazes) {
+        for (Maze maze : mazes) {
+            try {
+                maze.close();
+            } catch (IOException exc) {
+                System.out.println("ERROR: " + exc.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Get port the service listens on.
+     *
+     * @return loopback port
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Accept connections on the calling thread until the service is closed. A failed accept is retried after a
+     * pause that doubles with every consecutive failure up to MAX_ACCEPT_BACKOFF_MS; after MAX_ACCEPT_FAILURES
+     * consecutive failures, or if the server socket was closed, the service is closed and serve returns.
+     */
+    public void serve() {
+        int failures = 0;
+        long backoffMs = MIN_ACCEPT_BACKOFF_MS;
+        while (!closed) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException exc) {
+                if (closed) {
+                    break;
+                }
+                System.out.println("ERROR: Accept failed: " + exc.getMessage());
+                failures++;
+                if (server.isClosed() || failures >= MAX_ACCEPT_FAILURES) {
+                    System.out.println("ERROR: Service stopped after " + failures + " failed accepts");
+                    try {
+                        close();
+                    } catch (IOException closeExc) {
+                        System.out.println("ERROR: " + closeExc.getMessage());
+                    }
+                    break;
+                }
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                backoffMs = Math.min(2 * backoffMs, MAX_ACCEPT_BACKOFF_MS);
+                continue;
+            }
+            failures = 0;
+            backoffMs = MIN_ACCEPT_BACKOFF_MS;
+            connections.add(socket);
+            workers.execute(() -> handle(socket));
+        }
+    }
+
+    /**
+     * Accept connections on a background daemon thread.
+     */
+    public void start() {
+        Thread acceptor = new Thread(this::serve, "maze-service-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Stop accepting and close all connections.
+     *
+     * @throws IOException server socket can not be closed
+     */
+    public void close() throws IOException {
+        closed = true;
+        server.close();
+        for (Socket socket : connections) {
+            socket.close();
+        }
+        workers.shutdown();
+    }
+
+    /**
+     * Get statistics of the service as one JSON line.
+     *
+     * @return JSON object with latencyNanos histogram and cache counters
+     */
+    public String getStatsJson() {
+        return String.format("{\"latencyNanos\":%s,\"fieldHits\":%d,\"fieldMisses\":%d,\"fieldCoalesced\":%d,"
+                        + "\"fieldBytes\":%d}", latencies.toJson(), cache.getHits(), cache.getMisses(),
+                cache.getCoalesced(), cache.byteSize());
+    }
+
+    /**
+     * Answer requests of one connection until it sends QUIT or closes.
+     *
+     * @param socket client connection
+     */
+    private void handle(Socket socket) {
+        try (Socket client = socket;
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII));
+             Writer out = new BufferedWriter(
+                     new OutputStreamWriter(client.getOutputStream(), StandardCharsets.US_ASCII))) {
+            client.setTcpNoDelay(true);
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] parts = line.trim().split("\\s+");
+                if (parts[0].equals("SOLVE")) {
+                    long startTime = System.nanoTime();
+                    solve(parts, out);
+                    out.flush();
+                    latencies.record(System.nanoTime() - startTime);
+                } else if (parts[0].equals("STATS")) {
+                    out.write(getStatsJson() + "\n");
+                    out.flush();
+                } else if (parts[0].equals("QUIT")) {
+                    return;
+                } else {
+                    out.write("ERROR Unknown request: " + parts[0] + "\n");
+                    out.flush();
+                }
+            }
+        } catch (IOException exc) {
+            /* Client went away or service was closed */
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    /**
+     * Answer one SOLVE request, streaming the path.
+     *
+     * @param parts request words
+     * @param out   connection output, flushed after every path line
+     * @throws IOException write error
+     */
+    private void solve(String[] parts, Writer out) throws IOException {
+        if (parts.length != 6) {
+            out.write("ERROR Usage: SOLVE mazeId entryRow entryCol exitRow exitCol\n");
+            return;
+        }
+        Maze maze = mazes.get(parts[1]);
+        if (maze == null) {
+            out.write("ERROR Unknown maze: " + parts[1] + "\n");
+            return;
+        }
+        int[] coords = new int[4];
+        try {
+            for (int i = 0; i < 4; i++) {
+                coords[i] = Integer.parseInt(parts[i + 2]);
+            }
+        } catch (NumberFormatException exc) {
+            out.write("ERROR Invalid number: " + exc.getMessage() + "\n");
+            return;
+        }
+        MazeGrid grid = maze.getGrid();
+        for (int i = 0; i < 4; i++) {
+            if (coords[i] < 0 || coords[i] >= (i % 2 == 0 ? grid.numRows() : grid.numCols())) {
+                out.write("ERROR Location outside maze\n");
+                return;
+            }
+        }
+        if (grid.hasWall(coords[0], coords[1]) || grid.hasWall(coords[2], coords[3])) {
+            out.write("NOPATH\n");
+            return;
+        }
+
+        int cols = grid.numCols();
+        DistanceField field = cache.get(grid, coords[2] * cols + coords[3]);
+        int cell = coords[0] * cols + coords[1];
+        int distance = field.distanceOf(cell);
+        if (distance < 0) {
+            out.write("NOPATH\n");
+            return;
+        }
+        out.write("PATH " + (distance + 1) + "\n");
+        for (int i = 0; i <= distance; i++) {
+            int row = cell / cols;
+            out.write(Integer.toString(row));
+            out.write(' ');
+            out.write(Integer.toString(cell - row * cols));
+            if ((i + 1) % CHUNK_CELLS == 0 || i == distance) {
+                out.write('\n');
+                out.flush();
+            } else {
+                out.write(' ');
+            }
+            if (i < distance) {
+                cell = field.stepToward(cell);
+            }
+        }
+        out.write("END\n");
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * Strategy that searches a path between two cells of a maze grid.
+ * Cells are given as index row * numCols() + col. Entry and exit passed in are always inside the grid
+ * and free, Maze checks that before calling a solver.
+ */
+
+public interface MazeSolver {
+
+    /**
+     * Search a path from entry to exit.
+     *
+     * @param grid  wall grid
+     * @param entry entry cell index
+     * @param exit  exit cell index
+     * @return search result, never null
+     */
+    MazeSearchResult solve(MazeGrid grid, int entry, int exit);
+
+    /**
+     * Search a path from entry to exit, reporting progress to a monitor that can cancel the search.
+     * Solvers that do not support monitoring ignore monitor.
+     *
+     * @param grid    wall grid
+     * @param entry   entry cell index
+     * @param exit    exit cell index
+     * @param monitor progress receiver, or null
+     * @return search result, never null, without path if search was cancelled
+     */
+    default MazeSearchResult solve(MazeGrid grid, int entry, int exit, SearchMonitor monitor) {
+        return solve(grid, entry, exit);
+    }
+
+    /**
+     * Get solver by its command line name.
+     *
+     * @param name bfs, astar, bidi, jps, field, lpa, hpa, parallel, dijkstra, junction or alt,
+     *             dijkstra and junction weigh cells
+     * @return new solver
+     * @throws IllegalArgumentException unknown name
+     */
+    static MazeSolver forName(String name) {
+        switch (name) {
+            case "bfs":
+                return new BfsSolver();
+            case "astar":
+                return new AStarSolver(MazeHeuristic.MANHATTAN);
+            case "bidi":
+                return new BidirectionalBfsSolver();
+            case "jps":
+                return new JumpPointSolver();
+            case "field":
+                return new DistanceFieldSolver();
+            case "lpa":
+                return new IncrementalPlanner();
+            case "hpa":
+                return new HierarchicalPlanner();
+            case "parallel":
+                return new ParallelBfsSolver();
+            case "dijkstra":
+                return new DijkstraSolver();
+            case "junction":
+                return new JunctionGraphSolver();
+            case "alt":
+                return new LandmarkSolver();
+            default:
+                throw new IllegalArgumentException("Unknown solver: " + name);
+        }
+    }
+}
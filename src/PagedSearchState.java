@@ -0,0 +1,366 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Scratch state of a breadth-first search on a TiledMazeGrid, held within a memory budget like the grid's tiles.
+ * <p>
+ * Every cell takes one byte: 0 until it is reached, then 1 plus the direction bit position (as in
+ * MazeGrid.neighborOffsets) of the step that reached it, or ENTRY. The byte is visited mark and predecessor at
+ * once. Bytes are grouped into pages of square blocks of cells aligned with the grid's tiles, so a frontier that
+ * stays in a few tiles also stays in a few pages. Only a budget worth of pages is kept in memory, the least
+ * recently used one is written to a temporary file when another is needed.
+ * <p>
+ * The frontier queue keeps the chunk being read and the chunk being written in memory; full chunks in between
+ * are appended to the same file. Every cell is queued at most once, so the file never exceeds one byte plus
+ * one int per cell. The file is deleted on close.
+ */
+
+final class PagedSearchState implements Closeable {
+
+    static final int ENTRY = 5;
+
+    private static final int MAX_PAGE_SIZE = 1024;      // pages of at most 1MB
+    private static final int CHUNK_CELLS = 1 << 14;     // queued cells per chunk
+
+    private final FileChannel channel;
+    private final int pageShift;        // log2 of page size
+    private final int pageMask;         // page size - 1
+    private final int pageCols;         // pages per grid row
+    private final int pageBytes;
+    private final int maxPages;
+    private final boolean[] written;    // page has been written to the file
+    private final ByteBuffer buffer;    // read and write buffer of one page or chunk
+    private final LinkedHashMap<Integer, Page> pages = new LinkedHashMap<>(16, 0.75f, true);
+
+    /* Most recently used page, checked before the map */
+    private int lastIndex = -1;
+    private Page lastPage;
+
+    /* Queue: head chunk is read, chunks from readOffset to writeOffset are in the file, tail chunk is written */
+    private int[] head = new int[CHUNK_CELLS];
+    private int headPosition;
+    private int headLimit;
+    private int[] tail = new int[CHUNK_CELLS];
+    private int tailPosition;
+    private final long queueOffset;     // file offset of the first chunk, past all pages
+    private long readOffset;
+    private long writeOffset;
+    private long size;
+
+    /**
+     * Create empty state for a search of a grid, backed by a new temporary file.
+     *
+     * @param grid        tiled grid to search
+     * @param budgetBytes memory budget of pages, at least two pages are always kept
+     * @throws IOException temporary file can not be created
+     */
+    PagedSearchState(TiledMazeGrid grid, long budgetBytes) throws IOException {
+        int pageSize = Math.min(grid.getTileSize(), MAX_PAGE_SIZE);
+        this.pageShift = Integer.numberOfTrailingZeros(pageSize);
+        this.pageMask = pageSize - 1;
+        this.pageCols = (grid.numCols() + pageMask) >>> pageShift;
+        this.pageBytes = pageSize * pageSize;
+        this.maxPages = (int) Math.max(2, Math.min(Integer.MAX_VALUE, budgetBytes / pageBytes));
+        int pageRows = (grid.numRows() + pageMask) >>> pageShift;
+        this.written = new boolean[pageRows * pageCols];
+        this.queueOffset = (long) written.length * pageBytes;
+        this.readOffset = queueOffset;
+        this.writeOffset = queueOffset;
+        this.buffer = ByteBuffer.allocate(Math.max(pageBytes, CHUNK_CELLS * Integer.BYTES))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        this.channel = FileChannel.open(Files.createTempFile("maze-search", ".tmp"), StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+    }
+
+    /**
+     * Get how a cell was reached.
+     *
+     * @param row row number
+     * @param col column number
+     * @return 0 if not reached, ENTRY, or 1 plus the direction bit position of the step onto the cell
+     * @throws UncheckedIOException page can not be read or written
+     */
+    int get(int row, int col) {
+        return page(row, col).bytes[(row & pageMask) << pageShift | (col & pageMask)];
+    }
+
+    /**
+     * Record how a cell was reached.
+     *
+     * @param row  row number
+     * @param col  column number
+     * @param code ENTRY, or 1 plus the direction bit position of the step onto the cell
+     * @throws UncheckedIOException page can not be read or written
+     */
+    void set(int row, int col, int code) {
+        Page page = page(row, col);
+        page.bytes[(row & pageMask) << pageShift | (col & pageMask)] = (byte) code;
+        page.dirty = true;
+    }
+
+    /**
+     * Append a cell to the frontier queue.
+     *
+     * @param cell cell index
+     * @throws UncheckedIOException chunk can not be written
+     */
+    void enqueue(int cell) {
+        tail[tailPosition++] = cell;
+        size++;
+        if (tailPosition == CHUNK_CELLS) {
+            if (headPosition == headLimit && readOffset == writeOffset) {
+                int[] empty = head;         // nothing in between, the full chunk is next to read
+                head = tail;
+                headPosition = 0;
+                headLimit = CHUNK_CELLS;
+                tail = empty;
+            } else {
+                writeChunk();
+            }
+            tailPosition = 0;
+        }
+    }
+
+    /**
+     * Take the oldest cell from the frontier queue, which must not be empty.
+     *
+     * @return cell index
+     * @throws UncheckedIOException chunk can not be read
+     */
+    int dequeue() {
+        if (headPosition == headLimit) {
+            if (readOffset < writeOffset) {
+                readChunk();
+            } else {
+                int[] empty = head;
+                head = tail;
+                headLimit = tailPosition;
+                tail = empty;
+                tailPosition = 0;
+            }
+            headPosition = 0;
+        }
+        size--;
+        return head[headPosition++];
+    }
+
+    /**
+     * Get number of queued cells.
+     *
+     * @return frontier size
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Pick a sample of the cells next in the queue for a SearchMonitor.
+     *
+     * @param sample buffer of at least SearchMonitor.SAMPLE_SIZE cells
+     * @return number of cells picked
+     */
+    int sampleFrontier(int[] sample) {
+        int[] cells = head;
+        int first = headPosition;
+        return SearchMonitor.sample(i -> cells[first + i], headLimit - headPosition, sample);
+    }
+
+    /**
+     * Walk recorded steps back from a reached cell to the entry.
+     *
+     * @param cell    reached cell index
+     * @param cols    number of columns of the grid
+     * @param offsets cell index steps of the grid, indexed by direction bit position
+     * @return cell indices from entry to cell
+     * @throws UncheckedIOException page can not be read or written
+     */
+    int[] pathTo(int cell, int cols, int[] offsets) {
+        int length = 1;
+        for (int current = cell, code; (code = get(current / cols, current % cols)) != ENTRY; length++) {
+            current -= offsets[code - 1];
+        }
+        int[] path = new int[length];
+        int current = cell;
+        for (int i = length - 1; i > 0; i--) {
+            path[i] = current;
+            current -= offsets[get(current / cols, current % cols) - 1];
+        }
+        path[0] = current;
+        return path;
+    }
+
+    /**
+     * Get memory held by pages and queue chunks.
+     *
+     * @return size in bytes
+     */
+    long byteSize() {
+        return (long) pages.size() * pageBytes + 2L * CHUNK_CELLS * Integer.BYTES + buffer.capacity();
+    }
+
+    /**
+     * Drop pages and delete the temporary file.
+     *
+     * @throws IOException file can not be closed
+     */
+    public void close() throws IOException {
+        pages.clear();
+        lastIndex = -1;
+        lastPage = null;
+        channel.close();
+    }
+
+    /**
+     * Get page containing a cell, reading it from the file or creating it if it is not in memory.
+     *
+     * @param row row number
+     * @param col column number
+     * @return page in memory
+     * @throws UncheckedIOException page can not be read, or changed page that is evicted can not be written
+     */
+    private Page page(int row, int col) {
+        int index = (row >>> pageShift) * pageCols + (col >>> pageShift);
+        if (index == lastIndex) {
+            return lastPage;
+        }
+        Page page = pages.get(index);
+        if (page == null) {
+            page = new Page(pageBytes);
+            try {
+                if (pages.size() >= maxPages) {
+                    evict();
+                }
+                if (written[index]) {
+                    read(page.bytes, (long) index * pageBytes);
+                }
+            } catch (IOException exc) {
+                throw new UncheckedIOException("Can not access search page " + index, exc);
+            }
+            pages.put(index, page);
+        }
+        lastIndex = index;
+        lastPage = page;
+        return page;
+    }
+
+    /**
+     * Drop least recently used page, writing it to the file if it was changed.
+     *
+     * @throws IOException write error
+     */
+    private void evict() throws IOException {
+        Iterator<Map.Entry<Integer, Page>> iter = pages.entrySet().iterator();
+        Map.Entry<Integer, Page> eldest = iter.next();
+        if (eldest.getValue().dirty) {
+            int index = eldest.getKey();
+            buffer.clear();
+            buffer.put(eldest.getValue().bytes).flip();
+            write((long) index * pageBytes);
+            written[index] = true;
+        }
+        iter.remove();
+    }
+
+    /**
+     * Append full tail chunk to the file.
+     *
+     * @throws UncheckedIOException write error
+     */
+    private void writeChunk() {
+        buffer.clear();
+        buffer.asIntBuffer().put(tail);
+        buffer.limit(CHUNK_CELLS * Integer.BYTES);
+        try {
+            write(writeOffset);
+        } catch (IOException exc) {
+            throw new UncheckedIOException("Can not write search queue", exc);
+        }
+        writeOffset += CHUNK_CELLS * Integer.BYTES;
+    }
+
+    /**
+     * Read oldest chunk of the file into head.
+     *
+     * @throws UncheckedIOException read error
+     */
+    private void readChunk() {
+        try {
+            buffer.clear().limit(CHUNK_CELLS * Integer.BYTES);
+            fill(readOffset);
+        } catch (IOException exc) {
+            throw new UncheckedIOException("Can not read search queue", exc);
+        }
+        buffer.flip();
+        buffer.asIntBuffer().get(head);
+        headLimit = CHUNK_CELLS;
+        readOffset += CHUNK_CELLS * Integer.BYTES;
+        if (readOffset == writeOffset) {
+            readOffset = queueOffset;       // file part of queue is empty, reuse it
+            writeOffset = queueOffset;
+        }
+    }
+
+    /**
+     * Read bytes of a page from the file.
+     *
+     * @param bytes    page bytes to fill
+     * @param position file offset
+     * @throws IOException read error
+     */
+    private void read(byte[] bytes, long position) throws IOException {
+        buffer.clear().limit(bytes.length);
+        fill(position);
+        buffer.flip();
+        buffer.get(bytes);
+    }
+
+    /**
+     * Fill buffer up to its limit from the file.
+     *
+     * @param position file offset
+     * @throws IOException read error or end of file
+     */
+    private void fill(long position) throws IOException {
+        long start = position - buffer.position();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                throw new IOException("Search file is truncated at " + (start + buffer.position()));
+            }
+        }
+    }
+
+    /**
+     * Write buffer from position to limit to the file.
+     *
+     * @param position file offset
+     * @throws IOException write error
+     */
+    private void write(long position) throws IOException {
+        long start = position - buffer.position();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, start + buffer.position());
+        }
+    }
+
+    /**
+     * Cell bytes of one page in memory.
+     */
+    private static final class Page {
+
+        final byte[] bytes;
+        boolean dirty;      // changed since read from file or created
+
+        Page(int size) {
+            bytes = new byte[size];
+        }
+    }
+}
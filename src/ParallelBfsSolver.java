@@ -0,0 +1,256 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Level-synchronous parallel breadth-first search on a ForkJoinPool, returns a shortest path.
+ * <p>
+ * The frontier of one level is split into chunks that workers expand in parallel. A cell is claimed by
+ * setting its bit in a shared visited bitmap with compare-and-set, so exactly one worker records its
+ * predecessor and adds it to its own next-frontier buffer. Buffers are joined by the fork-join tree and copied
+ * into the next frontier after the level, so no lock is taken. Each level holds exactly the cells at that
+ * distance from entry, the same as serial BFS. Small levels are expanded on the calling thread
+ * straight into the next frontier; the two frontier buffers are swapped and reused from level to level.
+ */
+
+public class ParallelBfsSolver implements MazeSolver {
+
+    private static final int CHUNK_SIZE = 2048;         // frontier cells per leaf task
+    private static final int PARALLEL_THRESHOLD = 4096; // smaller levels are expanded serially
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Create solver on the common pool.
+     */
+    public ParallelBfsSolver() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create solver on a pool.
+     *
+     * @param pool pool whose workers expand the frontier
+     */
+    public ParallelBfsSolver(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Search shortest path from entry to exit.
+     *
+     * @param grid  wall grid
+     * @param entry entry cell index
+     * @param exit  exit cell index
+     * @return search result, expanded count includes the whole level in which exit was found
+     */
+    public MazeSearchResult solve(MazeGrid grid, int entry, int exit) {
+        return solve(grid, entry, exit, null);
+    }
+
+    /**
+     * Search shortest path from entry to exit, reporting each level as frontier before it is expanded.
+     *
+     * @param grid    wall grid
+     * @param entry   entry cell index
+     * @param exit    exit cell index
+     * @param monitor progress receiver, or null
+     * @return search result, without path if search was cancelled
+     */
+    public MazeSearchResult solve(MazeGrid grid, int entry, int exit, SearchMonitor monitor) {
+        Level level = new Level(grid, exit);
+        level.claim(entry);
+        level.predecessor[entry] = entry;
+        level.found = entry == exit;
+
+        int[] frontier = {entry};
+        int[] next = new int[4];
+        int frontierSize = 1;
+        int expanded = level.found ? 1 : 0;
+        int peak = 1;
+        int[] sample = monitor == null ? null : new int[SearchMonitor.SAMPLE_SIZE];
+        while (frontierSize > 0 && !level.found) {
+            if (monitor != null) {
+                int[] cells = frontier;
+                int count = SearchMonitor.sample(i -> cells[i], frontierSize, sample);
+                if (!monitor.progress(expanded, frontierSize, sample, count)) {
+                    return new MazeSearchResult(null, expanded).withPeakFrontier(peak);
+                }
+            }
+            expanded += frontierSize;
+            int size;
+            if (frontierSize < PARALLEL_THRESHOLD) {
+                next = reserve(next, 4 * frontierSize, grid.numCells());
+                size = level.expand(frontier, 0, frontierSize, next, 0);
+            } else {
+                Chunk chunks = pool.invoke(new ExpandTask(level, frontier, 0, frontierSize));
+
+                /* Concatenate worker buffers into the next frontier. */
+                size = 0;
+                for (Chunk chunk = chunks; chunk != null; chunk = chunk.next) {
+                    size += chunk.size;
+                }
+                next = reserve(next, size, grid.numCells());
+                int position = 0;
+                for (Chunk chunk = chunks; chunk != null; chunk = chunk.next) {
+                    System.arraycopy(chunk.cells, 0, next, position, chunk.size);
+                    position += chunk.size;
+                }
+            }
+
+            /* Swap buffers, the old frontier is reused for the level after next. */
+            int[] done = frontier;
+            frontier = next;
+            next = done;
+            frontierSize = size;
+            peak = Math.max(peak, size);
+        }
+
+        if (!level.found) {
+            return new MazeSearchResult(null, expanded).withPeakFrontier(peak);
+        }
+        return MazeSearchResult.fromPredecessors(level.predecessor, entry, exit, expanded).withPeakFrontier(peak);
+    }
+
+    /**
+     * Get a buffer of at least a capacity, growing it at least twofold so levels that keep growing copy little.
+     *
+     * @param buffer   current buffer, its contents are not kept
+     * @param capacity cells needed
+     * @param limit    cells in grid, no level holds more
+     * @return buffer, or a new larger one
+     */
+    private static int[] reserve(int[] buffer, int capacity, int limit) {
+        capacity = Math.min(capacity, limit);
+        if (buffer.length >= capacity) {
+            return buffer;
+        }
+        return new int[(int) Math.min(limit, Math.max(capacity, 2L * buffer.length))];
+    }
+
+    /**
+     * State shared by all workers of one search.
+     */
+    private static final class Level {
+
+        final MazeGrid grid;
+        final int exit;
+        final AtomicLongArray visited;
+        final int[] predecessor;        // written only by the worker that claimed the cell
+        final int[] offsets;            // neighbor index steps of grid
+        volatile boolean found;
+
+        Level(MazeGrid grid, int exit) {
+            this.grid = grid;
+            this.exit = exit;
+            this.visited = new AtomicLongArray((grid.numCells() + 63) >>> 6);
+            this.predecessor = new int[grid.numCells()];
+            this.offsets = grid.neighborOffsets();
+        }
+
+        /**
+         * Set visited bit of a cell.
+         *
+         * @param cell cell index
+         * @return true if this call set the bit, false if it was already set
+         */
+        boolean claim(int cell) {
+            int word = cell >>> 6;
+            long bit = 1L << cell;
+            long current = visited.get(word);
+            while ((current & bit) == 0) {
+                if (visited.compareAndSet(word, current, current | bit)) {
+                    return true;
+                }
+                current = visited.get(word);
+            }
+            return false;
+        }
+
+        /**
+         * Expand a range of the frontier into a buffer.
+         *
+         * @param frontier frontier cells
+         * @param from     first index, inclusive
+         * @param to       last index, exclusive
+         * @param out      buffer with room for 4 * (to - from) cells after position, or for all cells of the grid
+         * @param position first free index of out
+         * @return position after the cells claimed, which are in expansion order
+         */
+        int expand(int[] frontier, int from, int to, int[] out, int position) {
+            int cols = grid.numCols();
+            for (int i = from; i < to; i++) {
+                int current = frontier[i];
+                int row = current / cols;
+                for (int free = grid.freeNeighbors(row, current - row * cols); free != 0; free &= free - 1) {
+                    int next = current + offsets[Integer.numberOfTrailingZeros(free)];
+                    if (claim(next)) {
+                        predecessor[next] = current;
+                        out[position++] = next;
+                        if (next == exit) {
+                            found = true;
+                        }
+                    }
+                }
+            }
+            return position;
+        }
+    }
+
+    /**
+     * Next-frontier buffer of one worker, chained to the buffers of the tasks to its right.
+     */
+    private static final class Chunk {
+
+        final int[] cells;
+        int size;
+        Chunk next;
+
+        Chunk(int capacity) {
+            cells = new int[capacity];
+        }
+    }
+
+    /**
+     * Fork-join task expanding a range of the frontier.
+     */
+    private static final class ExpandTask extends RecursiveTask<Chunk> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Level level;
+        private final int[] frontier;
+        private final int from;
+        private final int to;
+
+        ExpandTask(Level level, int[] frontier, int from, int to) {
+            this.level = level;
+            this.frontier = frontier;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Expand range directly if small, otherwise split in halves and chain their buffers.
+         *
+         * @return first buffer of the chain
+         */
+        protected Chunk compute() {
+            if (to - from <= CHUNK_SIZE) {
+                Chunk out = new Chunk(Math.min(4 * (to - from), level.grid.numCells()));
+                out.size = level.expand(frontier, from, to, out.cells, 0);
+                return out;
+            }
+            int middle = (from + to) >>> 1;
+            ExpandTask right = new ExpandTask(level, frontier, middle, to);
+            right.fork();
+            Chunk left = new ExpandTask(level, frontier, from, middle).compute();
+            Chunk tail = left;
+            while (tail.next != null) {
+                tail = tail.next;
+            }
+            tail.next = right.join();
+            return left;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+import java.util.Arrays;
+
+/**
+ * Scratch state of one search, pooled per thread so concurrent queries on a shared grid neither allocate
+ * nor clear per-cell arrays.
+ * <p>
+ * A cell's predecessor and distance only count if its stamp equals the current generation. acquire moves the
+ * context to a new generation, which makes every mark of the previous search stale in O(1); stamps are only
+ * cleared when the generation counter wraps around. Stamps and predecessors are allocated for every search;
+ * distances, the queue and the open heap only when a solver first asks for them, so a thread that only runs
+ * breadth-first search never holds them. Arrays grow to the largest grid searched on the thread and stay
+ * allocated for the life of the thread, up to MAX_POOLED_CELLS cells: larger grids get a context of their own
+ * that is dropped after the search, so they do not stay pinned on every pool worker.
+ * <p>
+ * Usage, with the arrays read into locals before the loop:
+ * <pre>
+ * try (SearchContext context = SearchContext.acquire(grid.numCells())) {
+ *     int generation = context.generation;
+ *     int[] distance = context.distance();
+ *     ...
+ * }
+ * </pre>
+ * A search that runs while another one on the same thread holds the pooled context, for example from inside a
+ * SearchMonitor, gets a context of its own that is dropped afterwards. The pool limit can be changed with
+ * -Dmaze.pooledCells=cells.
+ */
+
+public final class SearchContext implements AutoCloseable {
+
+    public static final int MAX_POOLED_CELLS = Integer.getInteger("maze.pooledCells", 1 << 22);
+
+    private static final ThreadLocal<SearchContext> POOL = ThreadLocal.withInitial(SearchContext::new);
+
+    int[] stamp = new int[0];           // generation that last reached each cell
+    int[] predecessor = new int[0];     // cell each cell was reached from, valid if stamped
+    int generation;
+
+    private int[] distance = new int[0];        // steps or cost from entry, valid if stamped
+    private int[] queue = new int[0];           // room for every cell once
+    private IntMinHeap open;                    // null until a solver asks for it
+    private boolean inUse;
+
+    /**
+     * Get a context for a grid of a number of cells, starting a new generation. Grids of up to
+     * MAX_POOLED_CELLS cells use the calling thread's pooled context.
+     *
+     * @param cells number of cells of the grid
+     * @return context to close when search is done
+     */
+    public static SearchContext acquire(int cells) {
+        SearchContext context = cells <= MAX_POOLED_CELLS ? POOL.get() : null;
+        if (context == null || context.inUse) {
+            context = new SearchContext();
+        }
+        context.inUse = true;
+        context.begin(cells);
+        return context;
+    }
+
+    /**
+     * Drop the calling thread's pooled context, for example after searching a grid much larger than the
+     * ones that follow.
+     */
+    public static void releaseThreadContext() {
+        POOL.remove();
+    }
+
+    /**
+     * Return context to its thread's pool, leaving the open list empty.
+     */
+    public void close() {
+        if (open != null) {
+            open.clear();
+        }
+        inUse = false;
+    }
+
+    /**
+     * Check if a cell was reached in the current generation.
+     *
+     * @param cell cell index
+     * @return true if stamped
+     */
+    public boolean isReached(int cell) {
+        return stamp[cell] == generation;
+    }
+
+    /**
+     * Get distances of the cells, allocating them on first use.
+     *
+     * @return distance per cell, valid if stamped
+     */
+    int[] distance() {
+        if (distance.length < stamp.length) {
+            distance = new int[stamp.length];
+        }
+        return distance;
+    }
+
+    /**
+     * Get a queue with room for every cell once, allocating it on first use.
+     *
+     * @return queue array, its content is left over from earlier searches
+     */
+    int[] queue() {
+        if (queue.length < stamp.length) {
+            queue = new int[stamp.length];
+        }
+        return queue;
+    }
+
+    /**
+     * Get an empty open heap for the cells, allocating it on first use.
+     *
+     * @return open heap
+     */
+    IntMinHeap open() {
+        if (open == null) {
+            open = new IntMinHeap(stamp.length);
+        }
+        return open;
+    }
+
+    /**
+     * Grow stamps and predecessors to a grid size and start a new generation. Arrays allocated on demand are
+     * dropped when the grid size grows, so they are only reallocated for solvers that use them.
+     *
+     * @param cells number of cells
+     */
+    private void begin(int cells) {
+        if (stamp.length < cells) {
+            stamp = new int[cells];
+            predecessor = new int[cells];
+            distance = new int[0];
+            queue = new int[0];
+            open = null;
+            generation = 0;
+        }
+        generation++;
+        if (generation == 0) {
+            /* Counter wrapped, a stamp of 0 could be from 2^32 generations ago */
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+    }
+}
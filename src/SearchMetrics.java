@@ -0,0 +1,148 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Per-solver histograms of SearchStats, exported as JSON or through JMX.
+ * <p>
+ * Maze.search records into the global instance. Instrumentation is on unless the JVM is started with
+ * -Dmaze.metrics=false. ENABLED is a static final, so the JIT treats it as a constant and drops every
+ * {@code if (SearchMetrics.ENABLED)} block, including the peak frontier counting inside solver loops, when it is
+ * off. Recording happens once per search and takes a lock, never per expanded cell.
+ */
+
+public class SearchMetrics implements SearchMetricsMXBean {
+
+    public static final boolean ENABLED = !"false".equals(System.getProperty("maze.metrics"));
+    public static final String OBJECT_NAME = "maze:type=SearchMetrics";
+
+    private static final String[] METRICS = {"expanded", "peakFrontier", "allocatedBytes", "wallNanos", "pathLength"};
+    private static final SearchMetrics GLOBAL = new SearchMetrics();
+    private static final com.sun.management.ThreadMXBean ALLOCATION = allocationBean();
+
+    private final Map<String, LongHistogram[]> solvers = new TreeMap<>();   // histograms in METRICS order
+    private long searchCount;
+
+    /**
+     * Get instance Maze.search records into.
+     *
+     * @return global metrics
+     */
+    public static SearchMetrics global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Register global instance with the platform MBean server, once.
+     *
+     * @throws IllegalStateException registration failed
+     */
+    public static void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(GLOBAL, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException exc) {
+            /* Registered before */
+        } catch (JMException exc) {
+            throw new IllegalStateException("Can not register " + OBJECT_NAME, exc);
+        }
+    }
+
+    /**
+     * Get bytes allocated by current thread so far.
+     *
+     * @return allocated bytes, -1 if JVM can not measure it
+     */
+    public static long allocatedBytes() {
+        return ALLOCATION == null ? -1 : ALLOCATION.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Add a search to histograms of its solver.
+     *
+     * @param stats measurements of search
+     */
+    public synchronized void record(SearchStats stats) {
+        LongHistogram[] histograms = solvers.get(stats.getSolverName());
+        if (histograms == null) {
+            histograms = new LongHistogram[METRICS.length];
+            for (int i = 0; i < histograms.length; i++) {
+                histograms[i] = new LongHistogram();
+            }
+            solvers.put(stats.getSolverName(), histograms);
+        }
+        histograms[0].record(stats.getExpanded());
+        histograms[1].record(stats.getPeakFrontier());
+        if (stats.getAllocatedBytes() >= 0) {
+            histograms[2].record(stats.getAllocatedBytes());
+        }
+        histograms[3].record(stats.getWallNanos());
+        histograms[4].record(stats.getPathLength());
+        searchCount++;
+    }
+
+    public synchronized long getSearchCount() {
+        return searchCount;
+    }
+
+    public synchronized String[] getSolverNames() {
+        return solvers.keySet().toArray(new String[0]);
+    }
+
+    public synchronized String getJson() {
+        StringBuilder json = new StringBuilder("{");
+        for (Map.Entry<String, LongHistogram[]> solver : solvers.entrySet()) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append('"').append(solver.getKey()).append("\":{");
+            for (int i = 0; i < METRICS.length; i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append('"').append(METRICS[i]).append("\":").append(solver.getValue()[i].toJson());
+            }
+            json.append('}');
+        }
+        return json.append('}').toString();
+    }
+
+    public synchronized long getPercentile(String solverName, String metric, double percentile) {
+        int index = 0;
+        while (index < METRICS.length && !METRICS[index].equals(metric)) {
+            index++;
+        }
+        if (index == METRICS.length) {
+            throw new IllegalArgumentException("Unknown metric: " + metric);
+        }
+        LongHistogram[] histograms = solvers.get(solverName);
+        return histograms == null ? new LongHistogram().getPercentile(percentile)
+                : histograms[index].getPercentile(percentile);
+    }
+
+    public synchronized void reset() {
+        solvers.clear();
+        searchCount = 0;
+    }
+
+    /**
+     * Get thread bean that measures allocation, with measuring turned on.
+     *
+     * @return bean, or null if JVM does not support it
+     */
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) bean;
+        if (!allocation.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        allocation.setThreadAllocatedMemoryEnabled(true);
+        return allocation;
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * JMX view of SearchMetrics, registered as SearchMetrics.OBJECT_NAME.
+ * Metric names are expanded, peakFrontier, allocatedBytes, wallNanos and pathLength.
+ */
+
+public interface SearchMetricsMXBean {
+
+    /**
+     * Get number of searches recorded over all solvers.
+     *
+     * @return search count
+     */
+    long getSearchCount();
+
+    /**
+     * Get solvers that searched at least once.
+     *
+     * @return simple class names of solvers in name order
+     */
+    String[] getSolverNames();
+
+    /**
+     * Get all histograms as JSON.
+     *
+     * @return JSON object keyed by solver name
+     */
+    String getJson();
+
+    /**
+     * Get a percentile of one metric of one solver.
+     *
+     * @param solverName simple class name of solver
+     * @param metric     metric name
+     * @param percentile percentile from 0 to 100
+     * @return value at percentile, 0 if solver did not search yet
+     * @throws IllegalArgumentException unknown metric or percentile outside 0 to 100
+     */
+    long getPercentile(String solverName, String metric, double percentile);
+
+    /**
+     * Drop all recorded searches.
+     */
+    void reset();
+}
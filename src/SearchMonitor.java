@@ -0,0 +1,42 @@
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Receives progress of a running search and can cancel it.
+ * <p>
+ * Solvers that support monitoring call progress on the search thread about every REPORT_INTERVAL expanded
+ * cells (ParallelBfsSolver once per level), with an evenly spaced sample of at most SAMPLE_SIZE frontier
+ * cells. Other solvers ignore the monitor and can not be cancelled.
+ */
+
+public interface SearchMonitor {
+
+    int REPORT_INTERVAL = 1 << 12;      // expanded cells between reports, a power of two
+    int SAMPLE_SIZE = 1024;             // most frontier cells passed per report
+
+    /**
+     * Report progress of search.
+     *
+     * @param expanded     cells expanded so far
+     * @param frontierSize cells reached but not expanded yet
+     * @param sample       frontier cell indices, only valid during the call
+     * @param sampleSize   number of cells in sample
+     * @return true to go on, false to cancel; a cancelled search returns no path
+     */
+    boolean progress(int expanded, int frontierSize, int[] sample, int sampleSize);
+
+    /**
+     * Pick evenly spaced frontier cells into a sample buffer.
+     *
+     * @param frontier     frontier cell at each position from 0 to frontierSize - 1
+     * @param frontierSize number of frontier cells
+     * @param sample       buffer of at least SAMPLE_SIZE cells
+     * @return number of cells picked
+     */
+    static int sample(IntUnaryOperator frontier, int frontierSize, int[] sample) {
+        int count = Math.min(frontierSize, SAMPLE_SIZE);
+        for (int i = 0; i < count; i++) {
+            sample[i] = frontier.applyAsInt((int) ((long) i * frontierSize / count));
+        }
+        return count;
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Measurements of one Maze.search call, recorded when SearchMetrics.ENABLED is set.
+ */
+
+public class SearchStats {
+
+    private final String solverName;
+    private final int expanded;
+    private final int peakFrontier;
+    private final long allocatedBytes;
+    private final long wallNanos;
+    private final int pathLength;
+
+    /**
+     * Create measurements of a search.
+     *
+     * @param solverName     simple class name of solver
+     * @param expanded       cells expanded
+     * @param peakFrontier   most cells reached but not expanded at once, 0 if solver does not track it
+     * @param allocatedBytes bytes allocated by the searching thread, -1 if JVM can not measure it
+     * @param wallNanos      wall-clock time of search
+     * @param pathLength     cells of path found, 0 if none
+     */
+    public SearchStats(String solverName, int expanded, int peakFrontier, long allocatedBytes, long wallNanos,
+                       int pathLength) {
+        this.solverName = solverName;
+        this.expanded = expanded;
+        this.peakFrontier = peakFrontier;
+        this.allocatedBytes = allocatedBytes;
+        this.wallNanos = wallNanos;
+        this.pathLength = pathLength;
+    }
+
+    /**
+     * Get name of solver that searched.
+     *
+     * @return simple class name of solver
+     */
+    public String getSolverName() {
+        return solverName;
+    }
+
+    /**
+     * Get number of cells expanded.
+     *
+     * @return expanded cells
+     */
+    public int getExpanded() {
+        return expanded;
+    }
+
+    /**
+     * Get largest frontier during search.
+     *
+     * @return peak frontier cells, 0 if solver does not track it
+     */
+    public int getPeakFrontier() {
+        return peakFrontier;
+    }
+
+    /**
+     * Get bytes allocated by the searching thread. Allocations of worker threads, as in ParallelBfsSolver,
+     * are not included.
+     *
+     * @return allocated bytes, -1 if not measured
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Get wall-clock time of search.
+     *
+     * @return nanoseconds
+     */
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    /**
+     * Get number of cells of path found.
+     *
+     * @return path cells, 0 if no path was found
+     */
+    public int getPathLength() {
+        return pathLength;
+    }
+
+    /**
+     * Format as a JSON object.
+     *
+     * @return JSON object
+     */
+    public String toJson() {
+        return String.format("{\"solver\":\"%s\",\"expanded\":%d,\"peakFrontier\":%d,\"allocatedBytes\":%d,"
+                + "\"wallNanos\":%d,\"pathLength\":%d}",
+                solverName, expanded, peakFrontier, allocatedBytes, wallNanos, pathLength);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s expanded=%d peakFrontier=%d allocatedBytes=%d wallMs=%.3f pathLength=%d",
+                solverName, expanded, peakFrontier, allocatedBytes, wallNanos / 1e6, pathLength);
+    }
+}
@@ -0,0 +1,576 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * MazeGrid kept in a tile file and loaded on demand, for mazes whose wall bits do not fit in memory.
+ * <p>
+ * The grid is cut into square tiles of tileSize x tileSize cells, tileSize is a power of two of at least 64.
+ * A tile is tileSize rows of tileSize / 64 long words with the same bit layout as MazeGrid, tiles are stored
+ * in row major order and the part of a tile past the last row or column is zero. Only cacheBytes worth of
+ * tiles are held in memory, the least recently used one is dropped when another is needed, after being
+ * written back if its walls were changed.
+ * <p>
+ * All values are little endian. Layout:
+ * <pre>
+ *  0  magic "MAZT"
+ *  4  int version (1)
+ *  8  int tile size
+ * 12  int rows, int cols
+ * 20  int entry row, int entry col
+ * 28  int exit row, int exit col
+ * 36  zero padding up to 64
+ * 64  ceil(rows / tileSize) * ceil(cols / tileSize) tiles
+ * </pre>
+ * MazeLoader recognizes tiled files and opens them read-only with DEFAULT_CACHE_BYTES; walls can only be
+ * changed, and changed tiles written back, on a grid loaded with writable set. The file stays open until close,
+ * which Maze.close calls for the maze the grid was loaded with.
+ * <p>
+ * BfsSolver keeps the visited marks and frontier of a search on a tiled grid in a PagedSearchState with the same
+ * budget, so the default solver searches mazes whose per-cell arrays would not fit in memory either. The other
+ * solvers still allocate per-cell arrays on the heap.
+ * <p>
+ * Usage as converter: TiledMazeGrid [-t tileSize] mazeFile tiledMazeFile, mazeFile is a text or binary maze
+ * file. Convert large text mazes to MazeBinaryFormat first, binary files are mapped instead of read into heap.
+ */
+
+public class TiledMazeGrid extends MazeGrid implements Closeable {
+
+    public static final int VERSION = 1;
+    public static final int DEFAULT_TILE_SIZE = 512;                // 32KB per tile
+    public static final long DEFAULT_CACHE_BYTES = 64L << 20;
+
+    private static final int MAGIC = 'M' | 'A' << 8 | 'Z' << 16 | 'T' << 24;
+    private static final int HEADER_SIZE = 64;
+    private static final int MAX_TILE_SIZE = 1 << 15;
+
+    private final FileChannel channel;
+    private final boolean writable;
+    private final int tileShift;        // log2 of tile size
+    private final int tileMask;         // tile size - 1
+    private final int tileWords;        // long words per tile row
+    private final int tileBytes;
+    private final int tileCols;         // tiles per grid row
+    private final int maxTiles;
+    private final ByteBuffer buffer;    // read and write buffer of one tile
+    private final LinkedHashMap<Integer, Tile> tiles = new LinkedHashMap<>(16, 0.75f, true);
+
+    /* Most recently used tile, checked before the map */
+    private int lastIndex = -1;
+    private Tile lastTile;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Create grid on an opened tile file whose header was checked.
+     *
+     * @param channel    tile file
+     * @param writable   true if channel is open for writing
+     * @param header     file header as ints
+     * @param cacheBytes memory budget of cached tiles
+     */
+    private TiledMazeGrid(FileChannel channel, boolean writable, IntBuffer header, long cacheBytes) {
+        super(header.get(3), header.get(4), null);
+        int tileSize = header.get(2);
+        this.channel = channel;
+        this.writable = writable;
+        this.tileShift = Integer.numberOfTrailingZeros(tileSize);
+        this.tileMask = tileSize - 1;
+        this.tileWords = tileSize >>> 6;
+        this.tileBytes = tileSize * tileWords * Long.BYTES;
+        this.tileCols = (numCols() + tileMask) >>> tileShift;
+        this.maxTiles = (int) Math.max(1, Math.min(Integer.MAX_VALUE, cacheBytes / tileBytes));
+        this.buffer = ByteBuffer.allocate(tileBytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Convert maze file to tiled maze file.
+     *
+     * @param args [-t tileSize] maze file path, tiled output path
+     */
+    public static void main(String[] args) {
+        boolean withTileSize = args.length == 4 && args[0].equals("-t");
+        if (args.length != (withTileSize ? 4 : 2)) {
+            System.out.println("Usage: TiledMazeGrid [-t tileSize] mazeFile tiledMazeFile");
+            return;
+        }
+        String input = args[args.length - 2];
+        String output = args[args.length - 1];
+        try {
+            int tileSize = withTileSize ? Integer.parseInt(args[1]) : DEFAULT_TILE_SIZE;
+            try (Maze maze = MazeLoader.load(input)) {
+                write(maze, Paths.get(output), tileSize);
+            }
+        } catch (IllegalArgumentException exc) {
+            System.out.println("ERROR: " + exc.getMessage());
+        } catch (IOException exc) {
+            System.out.println("ERROR: " + input + ": " + exc.getMessage());
+        }
+    }
+
+    /**
+     * Check if file starts with tiled maze magic.
+     *
+     * @param channel opened file
+     * @return true if file is a tiled maze file
+     * @throws IOException read error
+     */
+    public static boolean isTiled(FileChannel channel) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        while (magic.hasRemaining() && channel.read(magic, magic.position()) > 0) {
+            // keep reading until 4 bytes or end of file
+        }
+        return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+    }
+
+    /**
+     * Write maze in tiled format. Source grid is read one band of tile rows at a time.
+     *
+     * @param maze     maze to write
+     * @param file     output path
+     * @param tileSize tile width and height, a power of two from 64 to 32768
+     * @throws IOException              write error
+     * @throws IllegalArgumentException grid is weighted, which only the text format stores
+     */
+    public static void write(Maze maze, Path file, int tileSize) throws IOException {
+        checkTileSize(tileSize);
+        MazeGrid grid = maze.getGrid();
+        if (grid.isWeighted()) {
+            throw new IllegalArgumentException("Weighted mazes can not be written in tiled format");
+        }
+        int tileWords = tileSize >>> 6;
+        int tileRows = (grid.numRows() + tileSize - 1) / tileSize;
+        int tileCols = (grid.numCols() + tileSize - 1) / tileSize;
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            /* Header */
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(tileSize);
+            buffer.putInt(grid.numRows()).putInt(grid.numCols());
+            buffer.putInt(maze.getEntryLoc().getRow()).putInt(maze.getEntryLoc().getCol());
+            buffer.putInt(maze.getExitLoc().getRow()).putInt(maze.getExitLoc().getCol());
+            buffer.position(HEADER_SIZE);
+
+            /* Tiles */
+            for (int tileRow = 0; tileRow < tileRows; tileRow++) {
+                for (int tileCol = 0; tileCol < tileCols; tileCol++) {
+                    for (int i = tileRow * tileSize; i < (tileRow + 1) * tileSize; i++) {
+                        for (int word = tileCol * tileWords; word < (tileCol + 1) * tileWords; word++) {
+                            if (buffer.remaining() < Long.BYTES) {
+                                flush(buffer, channel);
+                            }
+                            boolean inside = i < grid.numRows() && word < grid.wordsPerRow();
+                            buffer.putLong(inside ? grid.wallWord(i, word) : 0);
+                        }
+                    }
+                }
+            }
+            flush(buffer, channel);
+        }
+    }
+
+    /**
+     * Open tiled maze file read-only, walls can not be changed.
+     *
+     * @param file       tiled maze file path
+     * @param cacheBytes memory budget of cached tiles, at least one tile is always cached
+     * @return maze whose grid is a TiledMazeGrid on the file, to be closed by the caller
+     * @throws IOException read error, or MazeFormatException if header is invalid
+     */
+    public static Maze load(Path file, long cacheBytes) throws IOException {
+        return load(file, cacheBytes, false);
+    }
+
+    /**
+     * Open tiled maze file. Only a writable grid accepts wall changes; changed tiles are written back to the
+     * file when they are evicted, on flush and on close.
+     *
+     * @param file       tiled maze file path
+     * @param cacheBytes memory budget of cached tiles, at least one tile is always cached
+     * @param writable   true to open the file for writing too
+     * @return maze whose grid is a TiledMazeGrid on the file, to be closed by the caller
+     * @throws IOException read error, file can not be opened for writing, or MazeFormatException if header
+     *                     is invalid
+     */
+    public static Maze load(Path file, long cacheBytes, boolean writable) throws IOException {
+        FileChannel channel = writable
+                ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            IntBuffer header = readHeader(channel);
+            TiledMazeGrid grid = new TiledMazeGrid(channel, writable, header, cacheBytes);
+            return new Maze(grid, new MazeCoord(header.get(5), header.get(6)),
+                    new MazeCoord(header.get(7), header.get(8)));
+        } catch (IOException | RuntimeException exc) {
+            channel.close();
+            throw exc;
+        }
+    }
+
+    /**
+     * Check if a cell has wall. Location must be inside the grid.
+     *
+     * @param row row number
+     * @param col column number
+     * @return true if cell has wall
+     * @throws UncheckedIOException tile can not be read
+     */
+    public boolean hasWall(int row, int col) {
+        long[] words = tile(row, col).words;
+        return (words[(row & tileMask) * tileWords + ((col & tileMask) >>> 6)] & 1L << col) != 0;
+    }
+
+    /**
+     * Set or clear the wall of a cell. Location must be inside the grid.
+     *
+     * @param row  row number
+     * @param col  column number
+     * @param wall true to put a wall, false to make the cell free
+     * @throws ReadOnlyBufferException file was opened read-only
+     * @throws UncheckedIOException    tile can not be read
+     */
+    public void setWall(int row, int col, boolean wall) {
+        if (!writable) {
+            throw new ReadOnlyBufferException();
+        }
+        synchronized (this) {
+            Tile tile = tile(row, col);
+            int word = (row & tileMask) * tileWords + ((col & tileMask) >>> 6);
+            if (wall) {
+                tile.words[word] |= 1L << col;
+            } else {
+                tile.words[word] &= ~(1L << col);
+            }
+            tile.dirty = true;
+        }
+        wallsChanged();
+    }
+
+    /**
+     * Get 64 wall bits of a row at once, bit i stands for column wordIndex * 64 + i.
+     * Bits past the last column are always 0.
+     *
+     * @param row       row number
+     * @param wordIndex word number inside the row, from 0 to (numCols() - 1) / 64
+     * @return wall bits
+     * @throws UncheckedIOException tile can not be read
+     */
+    public long wallWord(int row, int wordIndex) {
+        int col = wordIndex << 6;
+        return tile(row, col).words[(row & tileMask) * tileWords + ((col & tileMask) >>> 6)];
+    }
+
+    /**
+     * Replace 64 wall bits of a row at once, bit i stands for column wordIndex * 64 + i.
+     * Bits past the last column are ignored.
+     *
+     * @param row       row number
+     * @param wordIndex word number inside the row, from 0 to (numCols() - 1) / 64
+     * @param bits      wall bits
+     * @throws ReadOnlyBufferException file was opened read-only
+     * @throws UncheckedIOException    tile can not be read
+     */
+    public void setWallWord(int row, int wordIndex, long bits) {
+        if (!writable) {
+            throw new ReadOnlyBufferException();
+        }
+        if (wordIndex == wordsPerRow() - 1 && (numCols() & 63) != 0) {
+            bits &= (1L << numCols()) - 1;
+        }
+        int col = wordIndex << 6;
+        synchronized (this) {
+            Tile tile = tile(row, col);
+            tile.words[(row & tileMask) * tileWords + ((col & tileMask) >>> 6)] = bits;
+            tile.dirty = true;
+        }
+        wallsChanged();
+    }
+
+    /**
+     * Get tile width and height.
+     *
+     * @return tile size in cells
+     */
+    public int getTileSize() {
+        return tileMask + 1;
+    }
+
+    /**
+     * Get number of tiles that fit in the memory budget.
+     *
+     * @return maximum cached tiles
+     */
+    public int getMaxTiles() {
+        return maxTiles;
+    }
+
+    /**
+     * Get memory held by cached tiles when the cache is full, also the budget of a BfsSolver search state.
+     *
+     * @return size in bytes
+     */
+    public long getCacheBytes() {
+        return (long) maxTiles * tileBytes;
+    }
+
+    /**
+     * Get number of tile lookups served from memory.
+     *
+     * @return hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Get number of tile lookups that read the file.
+     *
+     * @return misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Get number of tiles dropped to stay in budget.
+     *
+     * @return evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Get fraction of tile lookups that were hits.
+     *
+     * @return hit rate, 0 if nothing was looked up yet
+     */
+    public synchronized double getHitRate() {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    /**
+     * Report cache state in one line.
+     *
+     * @return statistics string
+     */
+    public synchronized String toString() {
+        return String.format("TiledMazeGrid[rows=%d,cols=%d,tileSize=%d,tiles=%d,maxTiles=%d,hits=%d,misses=%d,"
+                        + "hitRate=%.3f,evictions=%d]", numRows(), numCols(), getTileSize(), tiles.size(), maxTiles,
+                hits, misses, getHitRate(), evictions);
+    }
+
+    /**
+     * Write all changed tiles back to the file.
+     *
+     * @throws IOException write error
+     */
+    public synchronized void flush() throws IOException {
+        for (Map.Entry<Integer, Tile> entry : tiles.entrySet()) {
+            if (entry.getValue().dirty) {
+                writeTile(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Write changed tiles back and close the file. The grid can not be used afterwards.
+     *
+     * @throws IOException write error
+     */
+    public synchronized void close() throws IOException {
+        try {
+            if (writable) {
+                flush();
+            }
+        } finally {
+            tiles.clear();
+            lastIndex = -1;
+            lastTile = null;
+            channel.close();
+        }
+    }
+
+    /**
+     * Get tile containing a cell, reading it from the file if it is not cached.
+     *
+     * @param row row number
+     * @param col column number
+     * @return cached tile
+     * @throws UncheckedIOException tile can not be read, or changed tile that is evicted can not be written
+     */
+    private synchronized Tile tile(int row, int col) {
+        int index = (row >>> tileShift) * tileCols + (col >>> tileShift);
+        if (index == lastIndex) {
+            hits++;
+            return lastTile;
+        }
+        Tile tile = tiles.get(index);
+        if (tile != null) {
+            hits++;
+        } else {
+            misses++;
+            try {
+                if (tiles.size() >= maxTiles) {
+                    evict();
+                }
+                tile = readTile(index);
+            } catch (IOException exc) {
+                throw new UncheckedIOException("Can not access tile " + index, exc);
+            }
+            tiles.put(index, tile);
+        }
+        lastIndex = index;
+        lastTile = tile;
+        return tile;
+    }
+
+    /**
+     * Drop least recently used tile, writing it back if it was changed.
+     *
+     * @throws IOException write error
+     */
+    private void evict() throws IOException {
+        Iterator<Map.Entry<Integer, Tile>> iter = tiles.entrySet().iterator();
+        Map.Entry<Integer, Tile> eldest = iter.next();
+        if (eldest.getValue().dirty) {
+            writeTile(eldest.getKey(), eldest.getValue());
+        }
+        iter.remove();
+        evictions++;
+    }
+
+    /**
+     * Read one tile from the file.
+     *
+     * @param index tile number in row major order
+     * @return new tile
+     * @throws IOException read error
+     */
+    private Tile readTile(int index) throws IOException {
+        long position = HEADER_SIZE + (long) index * tileBytes;
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new MazeFormatException("Tiled maze file is truncated", position + buffer.position());
+            }
+        }
+        Tile tile = new Tile(tileBytes / Long.BYTES);
+        buffer.flip();
+        buffer.asLongBuffer().get(tile.words);
+        return tile;
+    }
+
+    /**
+     * Write one tile to the file and mark it clean.
+     *
+     * @param index tile number in row major order
+     * @param tile  tile to write
+     * @throws IOException write error
+     */
+    private void writeTile(int index, Tile tile) throws IOException {
+        long position = HEADER_SIZE + (long) index * tileBytes;
+        buffer.clear();
+        buffer.asLongBuffer().put(tile.words);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+        tile.dirty = false;
+    }
+
+    /**
+     * Read and check header.
+     *
+     * @param channel opened file
+     * @return header as ints, index 0 is magic
+     * @throws IOException read error or invalid header
+     */
+    private static IntBuffer readHeader(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+            // keep reading until header is complete or end of file
+        }
+        if (buffer.hasRemaining()) {
+            throw new MazeFormatException("Tiled maze header is truncated", buffer.position());
+        }
+        IntBuffer header = buffer.flip().asIntBuffer();
+        if (header.get(0) != MAGIC) {
+            throw new MazeFormatException("Not a tiled maze file", 0);
+        }
+        if (header.get(1) != VERSION) {
+            throw new MazeFormatException("Unsupported tiled maze version " + header.get(1), 4);
+        }
+        int tileSize = header.get(2);
+        try {
+            checkTileSize(tileSize);
+        } catch (IllegalArgumentException exc) {
+            throw new MazeFormatException(exc.getMessage(), 8);
+        }
+        int rows = header.get(3);
+        int cols = header.get(4);
+        if (rows < 1 || cols < 1 || (long) rows * cols > Integer.MAX_VALUE) {
+            throw new MazeFormatException("Invalid maze size " + rows + " x " + cols, 12);
+        }
+        long tileCount = (long) ((rows + tileSize - 1) / tileSize) * ((cols + tileSize - 1) / tileSize);
+        long expectedSize = HEADER_SIZE + tileCount * tileSize * (tileSize >>> 6) * Long.BYTES;
+        if (channel.size() < expectedSize) {
+            throw new MazeFormatException("Tiled maze file is truncated", channel.size());
+        }
+        return header;
+    }
+
+    /**
+     * Check tile size.
+     *
+     * @param tileSize tile width and height
+     * @throws IllegalArgumentException tile size is not a power of two from 64 to 32768
+     */
+    private static void checkTileSize(int tileSize) {
+        if (tileSize < 64 || tileSize > MAX_TILE_SIZE || Integer.bitCount(tileSize) != 1) {
+            throw new IllegalArgumentException("Invalid tile size " + tileSize);
+        }
+    }
+
+    /**
+     * Write out buffered bytes and clear buffer.
+     *
+     * @param buffer  buffer in write mode
+     * @param channel output file
+     * @throws IOException write error
+     */
+    private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Wall words of one tile in memory.
+     */
+    private static final class Tile {
+
+        final long[] words;
+        boolean dirty;      // changed since read from file
+
+        Tile(int size) {
+            words = new long[size];
+        }
+    }
+}